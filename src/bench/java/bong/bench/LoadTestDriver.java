@@ -0,0 +1,202 @@
+package bong.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import bong.BongCore;
+import bong.metrics.LatencyHistogram;
+import bong.task.Task;
+
+/**
+ * Drives BongCore with synthetic user sessions running on many threads at once.
+ * Each session sends a random mix of adds, marks, unmarks, finds, snoozes and deletes
+ * to getResponse. At the end the driver reports throughput, latency percentiles and
+ * the size of the task file. It then reloads the file into a fresh BongCore and checks
+ * that every task matches the list held in memory.
+ * The storage mode is chosen by the usual bong.storage system property.
+ * Usage: LoadTestDriver <task file> [<sessions>] [<commands per session>] [<initial tasks>] [<seed>]
+ */
+public class LoadTestDriver {
+    private static final int DEFAULT_SESSIONS = 8;
+    private static final int DEFAULT_COMMANDS = 2_000;
+    private static final int DEFAULT_INITIAL_TASKS = 1_000;
+    private static final long DEFAULT_SEED = 42L;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final BongCore core;
+    private final Random seeds;
+    // Rough number of tasks in the list, used to pick task numbers that usually exist
+    private final AtomicInteger estimatedSize;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private LoadTestDriver(BongCore core, long seed) {
+        this.core = core;
+        this.seeds = new Random(seed);
+        this.estimatedSize = new AtomicInteger(core.getTaskList().size());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: LoadTestDriver <task file> [<sessions>] [<commands per session>]"
+                    + " [<initial tasks>] [<seed>]");
+            return;
+        }
+        Path file = Path.of(args[0]);
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SESSIONS;
+        int commands = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_COMMANDS;
+        int initialTasks = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_INITIAL_TASKS;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_SEED;
+
+        deleteStorageFiles(file);
+        TaskFileGenerator.generate(file, initialTasks, seed);
+
+        LoadTestDriver driver = new LoadTestDriver(new BongCore(file.toString()), seed);
+        long elapsed = driver.run(sessions, commands);
+        driver.report(sessions * (long) commands, elapsed, file);
+        if (!driver.verify(file)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the sessions to completion.
+     *
+     * @return The wall-clock time taken, in nanoseconds.
+     */
+    private long run(int sessions, int commands) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            Random random = new Random(seeds.nextLong());
+            int session = i;
+            threads.add(new Thread(() -> runSession(random, session, commands), "bong-session-" + i));
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void runSession(Random random, int session, int commands) {
+        for (int i = 0; i < commands; i++) {
+            String command = nextCommand(random, session * commands + i);
+            long start = System.nanoTime();
+            String response = core.getResponse(command);
+            latencies.record(System.nanoTime() - start);
+            if (response.startsWith("Error:")) {
+                // Expected now and then, e.g. snoozing a todo or a task another session deleted
+                rejected.increment();
+            } else if (response.startsWith("An unexpected error occurred")) {
+                failed.increment();
+                System.out.println("Unexpected failure for '" + command + "': " + response);
+            }
+        }
+    }
+
+    /**
+     * Picks the next command: mostly adds and marks, with some finds, snoozes and deletes.
+     */
+    private String nextCommand(Random random, int n) {
+        int roll = random.nextInt(100);
+        if (roll < 15) {
+            estimatedSize.incrementAndGet();
+            return "todo " + TaskFileGenerator.randomDescription(random, n);
+        } else if (roll < 25) {
+            estimatedSize.incrementAndGet();
+            return "deadline " + TaskFileGenerator.randomDescription(random, n)
+                    + " /by " + TaskFileGenerator.randomDate(random);
+        } else if (roll < 35) {
+            estimatedSize.incrementAndGet();
+            String start = TaskFileGenerator.randomDate(random);
+            return "event " + TaskFileGenerator.randomDescription(random, n) + " /from " + start + " /to " + start;
+        } else if (roll < 55) {
+            return "mark " + randomTaskNumber(random);
+        } else if (roll < 65) {
+            return "unmark " + randomTaskNumber(random);
+        } else if (roll < 80) {
+            return "find " + TaskFileGenerator.randomDescription(random, n).split(" ")[1];
+        } else if (roll < 90) {
+            return "snooze " + randomTaskNumber(random) + " /to " + TaskFileGenerator.randomDate(random);
+        } else {
+            estimatedSize.decrementAndGet();
+            return "delete " + randomTaskNumber(random);
+        }
+    }
+
+    private int randomTaskNumber(Random random) {
+        return 1 + random.nextInt(Math.max(1, estimatedSize.get()));
+    }
+
+    private void report(long commands, long elapsedNanos, Path file) throws IOException {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Commands: %d in %.2f s (%.0f commands/s)%n", commands, seconds, commands / seconds);
+        System.out.printf("Rejected: %d, failed: %d%n", rejected.sum(), failed.sum());
+        StringBuilder line = new StringBuilder("Latency (ms):");
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(" p%s=%.3f", formatPercentile(percentile),
+                    latencies.getValueAtPercentile(percentile) / 1e6));
+        }
+        line.append(String.format(" max=%.3f", latencies.getMaxNanos() / 1e6));
+        System.out.println(line);
+        System.out.printf("Tasks: %d, file size: %d bytes%n", core.getTaskList().size(), Files.size(file));
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    /**
+     * Reloads the task file and compares it with the tasks held in memory.
+     *
+     * @return True if they match.
+     */
+    private boolean verify(Path file) {
+        List<Task> expected = core.getTaskList().getTasks();
+        List<Task> reloaded = new BongCore(file.toString()).getTaskList().getTasks();
+        if (expected.size() != reloaded.size()) {
+            System.out.println("MISMATCH: " + expected.size() + " tasks in memory, " + reloaded.size() + " reloaded");
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            String wanted = expected.get(i).toString();
+            String found = reloaded.get(i).toString();
+            if (!wanted.equals(found)) {
+                System.out.println("MISMATCH at task " + (i + 1) + ": expected " + wanted + " but reloaded " + found);
+                return false;
+            }
+        }
+        System.out.println("Reloaded task file matches the in-memory list.");
+        return failed.sum() == 0;
+    }
+
+    /**
+     * Deletes everything any storage mode keeps beside the task file, so each run starts from nothing.
+     */
+    private static void deleteStorageFiles(Path file) throws IOException {
+        for (String suffix : new String[] {"", ".tmp", ".journal", ".snapshot", ".base", ".archive.gz", ".lock"}) {
+            Files.deleteIfExists(Path.of(file + suffix));
+        }
+        Path segments = Path.of(file + ".parts");
+        if (Files.exists(segments)) {
+            // Deepest first, so each directory is empty by the time it is deleted
+            try (Stream<Path> paths = Files.walk(segments)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package bong.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import bong.command.Command;
+import bong.exception.BongException;
+import bong.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks parsing one input of each command type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParserBenchmark {
+    @Param({
+        "list",
+        "todo read book",
+        "deadline return book /by 2025-10-16 1800",
+        "event project meeting /from 2025-09-30 1200 /to 2025-09-30 1500",
+        "mark 12",
+        "unmark 12",
+        "delete 12",
+        "find book",
+        "snooze 3 /to 2025-10-18 1300 /end 2025-10-18 1500",
+        "help",
+        "bye"
+    })
+    private String input;
+
+    @Benchmark
+    public Command parse() throws BongException {
+        return Parser.parse(input);
+    }
+}
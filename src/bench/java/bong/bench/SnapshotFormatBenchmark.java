@@ -0,0 +1,83 @@
+package bong.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import bong.storage.BinaryStorage;
+import bong.storage.CompressedStorage;
+import bong.storage.Storage;
+import bong.task.Task;
+import bong.ui.Ui;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares loading and saving the same tasks in the text, binary and block-compressed task file formats.
+ * The file size of each format is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SnapshotFormatBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int taskCount;
+
+    @Param({"text", "binary", "compressed"})
+    private String format;
+
+    private Path directory;
+    private Storage storage;
+    private Ui ui;
+    private List<Task> tasks;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bong-bench");
+        Path file = directory.resolve("bong.txt");
+        TaskFileGenerator.generate(file, taskCount, 42L);
+        ui = new Ui();
+        storage = createStorage(file);
+        tasks = storage.loadTasks(ui);
+        // Saving once puts the file in the format being measured
+        storage.saveTasks(tasks);
+        System.out.println(format + " file size: " + Files.size(file) + " bytes");
+    }
+
+    private Storage createStorage(Path file) {
+        switch (format) {
+        case "binary":
+            return new BinaryStorage(file.toString());
+        case "compressed":
+            return new CompressedStorage(file.toString());
+        default:
+            return new Storage(file.toString());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<Task> loadTasks() throws IOException {
+        return storage.loadTasks(ui);
+    }
+
+    @Benchmark
+    public void saveTasks() throws IOException {
+        storage.saveTasks(tasks);
+    }
+}
@@ -0,0 +1,92 @@
+package bong.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures time-to-first-response of the console application.
+ * Each run starts a fresh JVM on bong.jar in an empty working directory, sends a single
+ * 'list' command and stops the clock when the reply appears, so the figure includes JVM
+ * start-up, class loading, storage initialisation and the first command.
+ * Usage: StartupBenchmark <bong.jar> [<cds archive>] [<runs>]
+ */
+public class StartupBenchmark {
+    private static final int DEFAULT_RUNS = 10;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: StartupBenchmark <bong.jar> [<cds archive>] [<runs>]");
+            return;
+        }
+        String jar = args[0];
+        Path archive = args.length > 1 ? Path.of(args[1]) : null;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_RUNS;
+
+        report("default", measure(jar, null, runs));
+        if (archive != null && Files.exists(archive)) {
+            report("with CDS archive", measure(jar, archive, runs));
+        } else {
+            System.out.println("No CDS archive found; run the cdsArchive task to create one.");
+        }
+    }
+
+    private static List<Long> measure(String jar, Path archive, int runs) throws IOException, InterruptedException {
+        List<Long> timings = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            timings.add(timeToFirstResponse(jar, archive));
+        }
+        return timings;
+    }
+
+    private static long timeToFirstResponse(String jar, Path archive) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (archive != null) {
+            command.add("-XX:SharedArchiveFile=" + archive.toAbsolutePath());
+        }
+        command.add("-cp");
+        command.add(Path.of(jar).toAbsolutePath().toString());
+        command.add("bong.Bong");
+
+        Path workingDir = Files.createTempDirectory("bong-startup");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(workingDir.toFile())
+                .redirectErrorStream(true)
+                .start();
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write("list\nbye\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        long elapsed = -1;
+        try (BufferedReader stdout = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = stdout.readLine()) != null) {
+                if (elapsed < 0 && (line.startsWith("Your task list") || line.startsWith("Here are the tasks"))) {
+                    elapsed = System.nanoTime() - start;
+                }
+            }
+        }
+        process.waitFor();
+        if (elapsed < 0) {
+            throw new IllegalStateException("bong.Bong did not answer the 'list' command");
+        }
+        return elapsed / 1_000_000;
+    }
+
+    private static void report(String label, List<Long> timings) {
+        List<Long> sorted = new ArrayList<>(timings);
+        Collections.sort(sorted);
+        System.out.printf("%-18s time to first response: min %d ms, median %d ms, max %d ms (%d runs)%n",
+                label, sorted.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1), sorted.size());
+    }
+}
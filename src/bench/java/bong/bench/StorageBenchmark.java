@@ -0,0 +1,63 @@
+package bong.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import bong.storage.Storage;
+import bong.task.Task;
+import bong.ui.Ui;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks loading and saving a task file of different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int taskCount;
+
+    private Path directory;
+    private Storage storage;
+    private Ui ui;
+    private List<Task> tasks;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bong-bench");
+        Path file = directory.resolve("bong.txt");
+        TaskFileGenerator.generate(file, taskCount, 42L);
+        storage = new Storage(file.toString());
+        ui = new Ui();
+        tasks = storage.loadTasks(ui);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<Task> loadTasks() throws IOException {
+        return storage.loadTasks(ui);
+    }
+
+    @Benchmark
+    public void saveTasks() throws IOException {
+        storage.saveTasks(tasks);
+    }
+}
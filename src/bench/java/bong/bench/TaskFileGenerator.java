@@ -0,0 +1,89 @@
+package bong.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import bong.util.DateTimeUtil;
+
+/**
+ * Generates synthetic task files in the storage format, for benchmarks and load tests.
+ * Tasks are a mix of todos, deadlines and events with short, repetitive descriptions,
+ * roughly a third of them marked done. The same seed always produces the same file.
+ * Usage: TaskFileGenerator <output file> <task count> [<seed>]
+ */
+public class TaskFileGenerator {
+    private static final String[] VERBS = {"read", "return", "buy", "write", "review", "call", "plan", "fix"};
+    private static final String[] NOUNS = {"book", "report", "groceries", "essay", "slides", "mum", "trip", "bike"};
+    private static final LocalDateTime BASE_DATE = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: TaskFileGenerator <output file> <task count> [<seed>]");
+            return;
+        }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        generate(Path.of(args[0]), Integer.parseInt(args[1]), seed);
+    }
+
+    /**
+     * Writes a task file with the given number of tasks.
+     *
+     * @param file The file to write.
+     * @param count The number of tasks.
+     * @param seed Seed for the random mix of tasks.
+     * @throws IOException If writing fails.
+     */
+    public static void generate(Path file, int count, long seed) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Random random = new Random(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(randomLine(random, i));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Returns a random task description.
+     *
+     * @param random Source of randomness.
+     * @param n A number to make the description distinct.
+     * @return The description.
+     */
+    public static String randomDescription(Random random, int n) {
+        return VERBS[random.nextInt(VERBS.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + n;
+    }
+
+    /**
+     * Returns a random date within about two years of the start of 2025, in storage format.
+     *
+     * @param random Source of randomness.
+     * @return The formatted date.
+     */
+    public static String randomDate(Random random) {
+        return BASE_DATE.plusMinutes(random.nextInt(2 * 365 * 24 * 60)).format(DateTimeUtil.STORAGE);
+    }
+
+    private static String randomLine(Random random, int n) {
+        String done = random.nextInt(3) == 0 ? "1" : "0";
+        String description = randomDescription(random, n);
+        switch (random.nextInt(3)) {
+        case 0:
+            return "T | " + done + " | " + description;
+        case 1:
+            return "D | " + done + " | " + description + " | " + randomDate(random);
+        default:
+            String start = randomDate(random);
+            return "E | " + done + " | " + description + " | " + start + " | " + start;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package bong.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import bong.command.ListCommand;
+import bong.exception.BongException;
+import bong.storage.Storage;
+import bong.task.Task;
+import bong.task.TaskList;
+import bong.ui.Ui;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the in-memory operations on a TaskList of different sizes,
+ * and rendering the whole list with ListCommand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskListBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int taskCount;
+
+    private TaskList tasks;
+    private Ui ui;
+    private final ListCommand listCommand = new ListCommand();
+
+    @Setup
+    public void setUp() throws IOException {
+        Path file = Files.createTempFile("bong-bench", ".txt");
+        TaskFileGenerator.generate(file, taskCount, 42L);
+        ui = new Ui();
+        tasks = new TaskList(new Storage(file.toString()).loadTasks(ui));
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public List<Task> findTasks() {
+        return tasks.findTasks("book");
+    }
+
+    /**
+     * Deletes the first task, the most expensive position, and appends it again
+     * so the list keeps the same size between invocations.
+     */
+    @Benchmark
+    public Task deleteFirstTask() throws BongException {
+        Task removed = tasks.deleteTask(1);
+        tasks.addTask(removed);
+        return removed;
+    }
+
+    @Benchmark
+    public String listCommand() throws BongException {
+        return listCommand.execute(tasks, ui, null);
+    }
+}
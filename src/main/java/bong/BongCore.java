@@ -1,16 +1,33 @@
 package bong;
 
+import bong.command.ArchiveCommand;
 import bong.command.Command;
 import bong.exception.BongException;
+import bong.metrics.CommandExecuteEvent;
+import bong.metrics.CommandMetrics;
+import bong.metrics.CommandParseEvent;
 import bong.parser.Parser;
+import bong.storage.BinaryStorage;
+import bong.storage.CompressedStorage;
+import bong.storage.JournalStorage;
+import bong.storage.PartitionedStorage;
 import bong.storage.Storage;
+import bong.storage.TaskFileLock;
+import bong.storage.TaskFileWatcher;
 import bong.task.Task;
+import bong.task.TaskEvent;
 import bong.task.TaskList;
 import bong.ui.Ui;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 
 /**
  * Encapsulates the core logic of the Bong task management application.
@@ -20,30 +37,89 @@ import java.util.List;
 public class BongCore {
     // File path where tasks are persistently stored
     private static final String FILE_PATH = "data/bong.txt";
+    // System property that selects the storage mode ("text", "journal", "binary", "compressed" or "partitioned")
+    private static final String STORAGE_MODE_PROPERTY = "bong.storage";
+    // System property giving the age in days after which completed tasks are archived on start-up
+    private static final String ARCHIVE_DAYS_PROPERTY = "bong.archive.days";
 
     /**
      * Represents the supported user command types in the Bong application.
      */
     public enum CommandType {
-        LIST, MARK, UNMARK, TODO, DEADLINE, EVENT, DELETE, FIND, SNOOZE, HELP, BYE, UNKNOWN
+        LIST, MARK, UNMARK, TODO, DEADLINE, EVENT, DELETE, FIND, SNOOZE, ARCHIVE, SYNC, HISTORY, STATS, HELP, BYE, UNKNOWN
     }
 
     // Instance variables for the core components
     private Ui ui;
     private Storage storage;
     private TaskList tasks;
+    private final Path filePath;
+    // Shared with the other processes using the task file; null if it could not be opened
+    private TaskFileLock fileLock;
+    // Version of the tasks this core holds, as counted by the lock file
+    private long knownVersion;
+    // Completed once the tasks have been loaded; commands wait on it before running
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private final CommandMetrics metrics = CommandMetrics.getInstance();
 
     /**
      * Constructs a BongCore instance, initialising its components and loading tasks.
      * This constructor sets up the essential backend components for the Bong application.
      */
     public BongCore() {
+        this(FILE_PATH, true);
+    }
+
+    /**
+     * Constructs a BongCore that keeps its tasks in the given file instead of the default one.
+     *
+     * @param filePath Path of the task file.
+     */
+    public BongCore(String filePath) {
+        this(filePath, true);
+    }
+
+    private BongCore(String filePath, boolean isLoadingNow) {
         ui = new Ui();
-        storage = new Storage(FILE_PATH);
+        this.filePath = Path.of(filePath);
+        storage = createStorage(System.getProperty(STORAGE_MODE_PROPERTY, "text"), filePath);
+        metrics.registerMBean();
+        try {
+            fileLock = new TaskFileLock(filePath);
+        } catch (IOException e) {
+            ui.showLoadingError("Other copies of Bong using the task file may overwrite its changes: "
+                    + e.getMessage());
+        }
+        if (isLoadingNow) {
+            loadTasks(progress -> { });
+        }
+    }
+
+    /**
+     * Creates a BongCore that loads its tasks on a background thread, so a front end can
+     * be shown straight away. Commands given before loading finishes wait until it does,
+     * and then run in the order they were given.
+     *
+     * @param progress Receives the fraction of the task file loaded so far, from the loading thread.
+     * @param warnings Receives warnings for the user, such as damaged lines in the task file, from whichever
+     *     thread runs into them.
+     * @return The BongCore, which may still be loading.
+     */
+    public static BongCore createLoadingInBackground(DoubleConsumer progress, Consumer<String> warnings) {
+        BongCore core = new BongCore(FILE_PATH, false);
+        core.ui.setWarningListener(warnings);
+        Thread loader = new Thread(() -> core.loadTasks(progress), "bong-loader");
+        loader.setDaemon(true);
+        loader.start();
+        return core;
+    }
 
+    private void loadTasks(DoubleConsumer progress) {
         List<Task> loaded = null;
         try {
-            loaded = storage.loadTasks(ui);
+            // Exclusive, since archiving old tasks may change the file
+            knownVersion = lock(true);
+            loaded = storage.loadTasks(ui, progress);
         } catch (IOException e) {
             ui.showLoadingError("Failed to load tasks: " + e.getMessage());
         }
@@ -52,30 +128,313 @@ public class BongCore {
             loaded = new ArrayList<>();
         }
 
-        tasks = new TaskList(loaded);
+        try {
+            long[] loadedIds = new long[loaded.size()];
+            for (int i = 0; i < loadedIds.length; i++) {
+                loadedIds[i] = loaded.get(i).getId();
+            }
+            tasks = new TaskList(loaded, storage.getNextId());
+            boolean hasNewIds = saveNewIds(loadedIds);
+            if (archiveOldTasks() > 0 || hasNewIds) {
+                advanceVersion();
+            }
+        } finally {
+            unlock();
+        }
         assert ui != null && storage != null && tasks != null : "core components must be initialised";
+        watchTaskFile();
+        progress.accept(1.0);
+        ready.complete(null);
+    }
+
+    /**
+     * Saves the tasks the task list has given new ids, those loaded without one from a file written
+     * before tasks had ids or edited by hand, or with an id another task already had, so that they keep
+     * the same ids the next time they are loaded. Each is saved as a rescheduling, which replaces the
+     * task's stored record, so that the journal's history includes the ids too.
+     *
+     * @param loadedIds The id of each task as it was loaded.
+     * @return Whether any task was given a new id.
+     */
+    private boolean saveNewIds(long[] loadedIds) {
+        List<TaskEvent> events = new ArrayList<>();
+        List<Task> current = tasks.getTasks();
+        for (int i = 0; i < loadedIds.length; i++) {
+            if (current.get(i).getId() != loadedIds[i]) {
+                events.add(new TaskEvent(TaskEvent.Type.RESCHEDULED, i, current.get(i)));
+            }
+        }
+        if (events.isEmpty()) {
+            return false;
+        }
+        try {
+            storage.saveTasks(current, events);
+        } catch (IOException e) {
+            ui.showLoadingError("Failed to save the ids given to tasks: " + e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Starts noticing changes made to the task file outside Bong.
+     * The journal and partitioned modes spread the tasks over several files, so only single-file modes are watched.
+     */
+    private void watchTaskFile() {
+        if (storage instanceof JournalStorage || storage instanceof PartitionedStorage) {
+            return;
+        }
+        try {
+            TaskFileWatcher.start(filePath, this::reloadExternalChanges);
+        } catch (IOException e) {
+            ui.showLoadingError("Changes made to the task file outside Bong will not be noticed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies changes made to the task file outside Bong, such as hand edits or a sync from another
+     * machine, to the task list, so that the next save keeps them instead of overwriting them.
+     * Only the tasks that differ are changed, and listeners such as the search index hear about each one.
+     */
+    private synchronized void reloadExternalChanges() {
+        try {
+            catchUp(lock(false));
+        } catch (IOException e) {
+            ui.showLoadingError("Failed to reload tasks changed outside Bong: " + e.getMessage());
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Brings the task list up to date with the task file if another process or an outside edit has changed it
+     * since this core last loaded or saved it. Must be called under the lock.
+     * A reload with lines that could not be read is not applied, since the tasks on those lines would
+     * otherwise be deleted from the list, and from the file at the next save.
+     *
+     * @param version The version read when the lock was taken.
+     * @throws IOException If the task file cannot be read.
+     */
+    private void catchUp(long version) throws IOException {
+        // A file that is missing for now is most likely being replaced
+        boolean isFileChanged = Files.exists(filePath) && storage.isChangedExternally();
+        if (version != knownVersion || isFileChanged) {
+            List<String> damagedLines = new ArrayList<>();
+            List<Task> reloaded = storage.loadTasks(new Ui() {
+                @Override
+                public void showStorageCorruptionWarning(String line) {
+                    damagedLines.add(line);
+                }
+            });
+            if (damagedLines.isEmpty()) {
+                tasks.reserveIdsBelow(storage.getNextId());
+                tasks.applyChanges(reloaded);
+            } else {
+                ui.showLoadingError("Changes made to the task file outside Bong were not loaded, "
+                        + "since these lines could not be read:\n" + String.join("\n", damagedLines));
+            }
+        }
+        knownVersion = version;
+    }
+
+    /**
+     * Locks the task file against the other processes using it.
+     *
+     * @param isExclusive True to change the tasks, false only to read them.
+     * @return The version of the tasks in the file, or the version already held if there is no lock file.
+     * @throws IOException If the lock file cannot be locked.
+     */
+    private long lock(boolean isExclusive) throws IOException {
+        return fileLock == null ? knownVersion : fileLock.lock(isExclusive);
+    }
+
+    private void advanceVersion() {
+        if (fileLock == null) {
+            return;
+        }
+        try {
+            knownVersion = fileLock.advanceVersion();
+        } catch (IOException e) {
+            // The change itself was saved; other processes only miss the hint to reload
+            ui.showLoadingError("Failed to tell other copies of Bong about the change: " + e.getMessage());
+        }
+    }
+
+    private void unlock() {
+        if (fileLock == null) {
+            return;
+        }
+        try {
+            fileLock.unlock();
+        } catch (IOException e) {
+            ui.showLoadingError("Failed to unlock the task file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Archives completed tasks older than the age set by the archive policy property, if it is set.
+     * Keeps the task list loaded at start-up down to the tasks still in use.
+     *
+     * @return The number of tasks archived.
+     */
+    private int archiveOldTasks() {
+        String days = System.getProperty(ARCHIVE_DAYS_PROPERTY);
+        if (days == null) {
+            return 0;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(Integer.parseUnsignedInt(days.trim()));
+            return ArchiveCommand.archiveDoneTasks(tasks, storage, cutoff).size();
+        } catch (NumberFormatException e) {
+            ui.showLoadingError(ARCHIVE_DAYS_PROPERTY + " should be a number of days, not '" + days + "'");
+        } catch (IOException e) {
+            ui.showLoadingError("Failed to archive old tasks: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a future that completes once the tasks have been loaded.
+     *
+     * @return The loading future.
+     */
+    public CompletableFuture<Void> whenReady() {
+        return ready;
+    }
+
+    /**
+     * Creates the Storage implementation for the requested storage mode.
+     *
+     * @param mode "journal" for event-sourced storage, "binary" for the compact binary file,
+     *     "compressed" for the block-compressed text file, "partitioned" for per-month segment files,
+     *     anything else for the plain text file.
+     * @param filePath Path of the task file.
+     * @return The Storage to use.
+     */
+    private static Storage createStorage(String mode, String filePath) {
+        if (mode.equalsIgnoreCase("journal")) {
+            return new JournalStorage(filePath);
+        }
+        if (mode.equalsIgnoreCase("binary")) {
+            return new BinaryStorage(filePath);
+        }
+        if (mode.equalsIgnoreCase("compressed")) {
+            return new CompressedStorage(filePath);
+        }
+        if (mode.equalsIgnoreCase("partitioned")) {
+            return new PartitionedStorage(filePath);
+        }
+        return new Storage(filePath);
     }
 
     /**
      * Processes a user input command and returns a response string.
      * Useful for GUI where direct console interaction by UI/Command classes is undesirable.
+     * Commands from several threads are run one at a time, in the order they get the lock.
      *
      * @param input Raw command string from the user.
      * @return String containing the response from the executed command, or an error message.
      */
-    public String getResponse(String input) {
+    public synchronized String getResponse(String input) {
         assert input != null : "input must not be null";
+        ready.join();
         assert ui != null && storage != null && tasks != null : "components must be initialised before getResponse";
+        CommandType type = Parser.parseCommandType(input);
+        metrics.takePersistTime();
+        long start = System.nanoTime();
+        long parsed = start;
+        // Parsing can finish within the clock's resolution, so whether it succeeded is kept apart from when
+        boolean isParsed = false;
+        CommandParseEvent parseEvent = new CommandParseEvent();
+        CommandExecuteEvent executeEvent = new CommandExecuteEvent();
+        parseEvent.begin();
         try {
             Command c = Parser.parse(input);
-            return c.execute(tasks, ui, storage);
+            parsed = System.nanoTime();
+            isParsed = true;
+            commitParseEvent(parseEvent, type, input);
+            executeEvent.begin();
+            String response = executeLocked(c);
+            executeEvent.succeeded = true;
+            return response;
         } catch (BongException e) {
             return "Error: " + e.getMessage();
         } catch (Exception e) {
             return "An unexpected error occurred: " + e.getMessage();
+        } finally {
+            recordTimings(type, isParsed, start, parsed, System.nanoTime());
+            if (!isParsed) {
+                commitParseEvent(parseEvent, type, input);
+            } else if (executeEvent.shouldCommit()) {
+                executeEvent.commandType = type.name();
+                executeEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * Runs the command under the lock, after catching up with changes other processes made to the task file.
+     * A command that changes the tasks holds the lock exclusively and then tells the other processes.
+     */
+    private String executeLocked(Command c) throws BongException, IOException {
+        long version = lock(c.isModifying());
+        try {
+            catchUp(version);
+            String response = c.execute(tasks, ui, storage);
+            if (c.isModifying()) {
+                advanceVersion();
+            }
+            return response;
+        } finally {
+            unlock();
+        }
+    }
+
+    private static void commitParseEvent(CommandParseEvent event, CommandType type, String input) {
+        if (event.shouldCommit()) {
+            event.commandType = type.name();
+            event.inputLength = input.length();
+            event.commit();
         }
     }
 
+    private void recordTimings(CommandType type, boolean isParsed, long start, long parsed, long end) {
+        metrics.record(type, CommandMetrics.Phase.TOTAL, end - start);
+        if (!isParsed) {
+            // Parsing failed, so the whole command was spent parsing
+            metrics.record(type, CommandMetrics.Phase.PARSE, end - start);
+            return;
+        }
+        metrics.record(type, CommandMetrics.Phase.PARSE, parsed - start);
+        metrics.record(type, CommandMetrics.Phase.EXECUTE, end - parsed);
+        long persisted = metrics.takePersistTime();
+        if (persisted > 0) {
+            metrics.record(type, CommandMetrics.Phase.PERSIST, persisted);
+        }
+    }
+
+    /**
+     * Returns the task list managed by this core.
+     * The list is not thread-safe, so callers should only touch it from the thread that runs commands.
+     *
+     * @return The TaskList.
+     */
+    public TaskList getTaskList() {
+        ready.join();
+        return tasks;
+    }
+
+    /**
+     * Runs an action on the task list under the lock that commands and reloads of outside changes hold.
+     * The action sees no change half made, and no change comes between what it reads and the listeners
+     * it registers, so a copy of the tasks and the events that follow it line up.
+     *
+     * @param action The action to run once the tasks have been loaded.
+     */
+    public synchronized void withTaskList(Consumer<TaskList> action) {
+        ready.join();
+        action.accept(tasks);
+    }
+
     /**
      * Returns the welcome message for initial text on GUI.
      *
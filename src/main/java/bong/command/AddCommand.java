@@ -3,6 +3,7 @@ package bong.command;
 import bong.exception.BongException;
 import bong.storage.Storage;
 import bong.task.Task;
+import bong.task.TaskEvent;
 import bong.task.TaskList;
 import bong.ui.Ui;
 
@@ -39,7 +40,7 @@ public abstract class AddCommand extends Command {
     public String execute(TaskList tasks, Ui ui, Storage storage) throws BongException {
         tasks.addTask(newTask);
         try {
-            storage.saveTasks(tasks.getTasks());
+            storage.saveTasks(tasks.getTasks(), new TaskEvent(TaskEvent.Type.ADDED, tasks.size() - 1, newTask));
         } catch (IOException e) {
             throw new BongException("Error saving tasks: " + e.getMessage());
         }
@@ -47,4 +48,14 @@ public abstract class AddCommand extends Command {
                 newTask.toString() + "\n" +
                 "Now you have " + tasks.size() + " tasks in the list.";
     }
+
+    /**
+     * Indicates that this command changes the task list.
+     *
+     * @return True.
+     */
+    @Override
+    public boolean isModifying() {
+        return true;
+    }
 }
@@ -0,0 +1,128 @@
+package bong.command;
+
+import bong.exception.BongException;
+import bong.storage.Storage;
+import bong.task.Deadline;
+import bong.task.Event;
+import bong.task.Task;
+import bong.task.TaskEvent;
+import bong.task.TaskList;
+import bong.task.TaskListListener;
+import bong.ui.Ui;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Represents a command to move completed tasks out of the task list into the archive.
+ * Archived tasks are no longer loaded, listed or saved with the rest,
+ * but can still be seen with 'list /archived' and 'find /all'.
+ * Inherits from Command.
+ */
+public class ArchiveCommand extends Command {
+    private final Integer minimumAgeDays;
+
+    /**
+     * Constructs an ArchiveCommand that archives every completed task.
+     */
+    public ArchiveCommand() {
+        this.minimumAgeDays = null;
+    }
+
+    /**
+     * Constructs an ArchiveCommand that archives completed tasks whose date is more than the given number of days ago.
+     * Tasks are dated by their deadline or the end of their event; todos have no date and are kept.
+     *
+     * @param minimumAgeDays How many days ago a task's date must be for it to be archived.
+     */
+    public ArchiveCommand(int minimumAgeDays) {
+        assert minimumAgeDays >= 0 : "minimum age must not be negative";
+        this.minimumAgeDays = minimumAgeDays;
+    }
+
+    public Integer getMinimumAgeDays() {
+        return this.minimumAgeDays;
+    }
+
+    /**
+     * Executes the archive command.
+     * Appends the selected tasks to the archive, removes them from the TaskList and saves the rest.
+     *
+     * @param tasks The TaskList object to archive tasks from.
+     * @param ui The Ui object (not directly used).
+     * @param storage The Storage object holding the archive and the task file.
+     * @return String message saying how many tasks were archived.
+     * @throws BongException If an error occurs while archiving or saving.
+     */
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) throws BongException {
+        LocalDateTime cutoff = minimumAgeDays == null ? null : LocalDateTime.now().minusDays(minimumAgeDays);
+        List<Task> archived;
+        try {
+            archived = archiveDoneTasks(tasks, storage, cutoff);
+        } catch (IOException e) {
+            throw new BongException("Error archiving tasks: " + e.getMessage());
+        }
+        if (archived.isEmpty()) {
+            return "There are no completed tasks to archive.";
+        }
+        return "Noted. I've archived " + archived.size() + " completed tasks.\n"
+                + "Now you have " + tasks.size() + " tasks in the list.";
+    }
+
+    /**
+     * Moves completed tasks dated before the cutoff into the archive.
+     * The archive is written first, so a failure never loses a task; at worst a task
+     * ends up both archived and still in the list.
+     *
+     * @param tasks The TaskList to archive tasks from.
+     * @param storage The Storage object holding the archive and the task file.
+     * @param cutoff Only tasks dated before this are archived, or null to archive every completed task.
+     * @return The archived tasks.
+     * @throws IOException If writing the archive or the task file fails.
+     */
+    public static List<Task> archiveDoneTasks(TaskList tasks, Storage storage, LocalDateTime cutoff)
+            throws IOException {
+        Predicate<Task> isArchivable = task -> task.isDone() && (cutoff == null || isDatedBefore(task, cutoff));
+        List<Task> selected = tasks.getTasks().stream().filter(isArchivable).toList();
+        if (selected.isEmpty()) {
+            return selected;
+        }
+        storage.archiveTasks(selected);
+        // The removals are saved as events, so that the journal's history includes them
+        List<TaskEvent> events = new ArrayList<>();
+        TaskListListener recorder = events::add;
+        tasks.addListener(recorder);
+        List<Task> removed;
+        try {
+            removed = tasks.removeTasks(isArchivable);
+        } finally {
+            tasks.removeListener(recorder);
+        }
+        assert removed.size() == selected.size() : "the same tasks should be selected twice";
+        storage.saveTasks(tasks.getTasks(), events);
+        return removed;
+    }
+
+    private static boolean isDatedBefore(Task task, LocalDateTime cutoff) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getDeadline().isBefore(cutoff);
+        } else if (task instanceof Event) {
+            return ((Event) task).getEnd().isBefore(cutoff);
+        }
+        return false;
+    }
+
+    /**
+     * Indicates that this command changes the task list.
+     *
+     * @return True.
+     */
+    @Override
+    public boolean isModifying() {
+        return true;
+    }
+}
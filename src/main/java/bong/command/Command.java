@@ -25,6 +25,19 @@ public abstract class Command {
      */
     public abstract String execute(TaskList tasks, Ui ui, Storage storage) throws BongException;
 
+    /**
+     * Finds the current position of the task a command is about.
+     *
+     * @param tasks The TaskList holding the task.
+     * @param taskNumber The 1-based index the task was given by, if it was not given by id.
+     * @param taskId The id the task was given by, or 0 if it was given by position.
+     * @return The 1-based index of the task.
+     * @throws BongException If no task has the given id.
+     */
+    protected static int resolveTaskNumber(TaskList tasks, int taskNumber, long taskId) throws BongException {
+        return taskId == 0 ? taskNumber : tasks.getTaskNumber(taskId);
+    }
+
     /**
      * Checks if this command is an exit command.
      *
@@ -33,4 +46,13 @@ public abstract class Command {
     public boolean isExit() {
         return false;
     }
+
+    /**
+     * Checks if this command changes the tasks, so that it must not run while another process is using them.
+     *
+     * @return True if this command changes the task list, false otherwise.
+     */
+    public boolean isModifying() {
+        return false;
+    }
 }
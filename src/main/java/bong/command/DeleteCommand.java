@@ -3,6 +3,7 @@ package bong.command;
 import bong.exception.BongException;
 import bong.storage.Storage;
 import bong.task.Task;
+import bong.task.TaskEvent;
 import bong.task.TaskList;
 import bong.ui.Ui;
 
@@ -14,6 +15,8 @@ import java.io.IOException;
  */
 public class DeleteCommand extends Command {
     private final int taskNumber;
+    // The id the task was given by, or 0 if it was given by position
+    private final long taskId;
 
     /**
      * Constructs a DeleteCommand with the specified task number.
@@ -21,7 +24,23 @@ public class DeleteCommand extends Command {
      * @param taskNumber The 1-based index of the task.
      */
     public DeleteCommand(int taskNumber) {
+        this(taskNumber, 0);
+    }
+
+    private DeleteCommand(int taskNumber, long taskId) {
         this.taskNumber = taskNumber;
+        this.taskId = taskId;
+    }
+
+    /**
+     * Constructs a DeleteCommand for the task with the given id, wherever it is in the list.
+     *
+     * @param taskId The id of the task.
+     * @return A new DeleteCommand.
+     */
+    public static DeleteCommand forId(long taskId) {
+        assert taskId > 0 : "task ids must be positive";
+        return new DeleteCommand(0, taskId);
     }
 
     /**
@@ -37,9 +56,10 @@ public class DeleteCommand extends Command {
      */
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) throws BongException {
-        Task removedTask = tasks.deleteTask(taskNumber);
+        int number = resolveTaskNumber(tasks, taskNumber, taskId);
+        Task removedTask = tasks.deleteTask(number);
         try {
-            storage.saveTasks(tasks.getTasks());
+            storage.saveTasks(tasks.getTasks(), new TaskEvent(TaskEvent.Type.REMOVED, number - 1, removedTask));
         } catch (IOException e) {
             throw new BongException("Error saving tasks: " + e. getMessage());
         }
@@ -47,4 +67,14 @@ public class DeleteCommand extends Command {
                 removedTask.toString() + "\nNow you have " +
                 tasks.size() + " tasks in the list.";
     }
+
+    /**
+     * Indicates that this command changes the task list.
+     *
+     * @return True.
+     */
+    @Override
+    public boolean isModifying() {
+        return true;
+    }
 }
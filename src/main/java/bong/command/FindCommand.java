@@ -1,10 +1,12 @@
 package bong.command;
 
+import bong.exception.BongException;
 import bong.storage.Storage;
 import bong.task.Task;
 import bong.task.TaskList;
 import bong.ui.Ui;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -13,6 +15,7 @@ import java.util.List;
  */
 public class FindCommand extends Command {
     private final String keyword;
+    private final boolean isSearchingArchive;
 
     /**
      * Constructs a FindCommand with the specified keyword.
@@ -20,26 +23,45 @@ public class FindCommand extends Command {
      * @param keyword Keyword to search for.
      */
     public FindCommand(String keyword) {
+        this(keyword, false);
+    }
+
+    /**
+     * Constructs a FindCommand with the specified keyword.
+     *
+     * @param keyword Keyword to search for.
+     * @param isSearchingArchive True to search the archived tasks as well.
+     */
+    public FindCommand(String keyword, boolean isSearchingArchive) {
         this.keyword = keyword;
+        this.isSearchingArchive = isSearchingArchive;
     }
 
     public String getKeyword() {
         return this.keyword;
     }
+
+    public boolean isSearchingArchive() {
+        return this.isSearchingArchive;
+    }
     
     /**
      * Executes the find command.
-     * Searches the TaskList for tasks containing the keyword and returns a formatted string
-     * listing the matching tasks or a "no matches" message.
+     * Searches the TaskList, and the archive if asked to, for tasks containing the keyword
+     * and returns a formatted string listing the matching tasks or a "no matches" message.
      *
      * @param tasks The TaskList object to search within.
-     * @param ui The Ui object (not directly used).
-     * @param storage The Storage object (not directly used).
+     * @param ui The Ui object for warnings about a damaged archive.
+     * @param storage The Storage object holding the archive.
      * @return String message with the list of matching tasks or a no-match message.
+     * @throws BongException If the archive cannot be read.
      */
     @Override
-    public String execute(TaskList tasks, Ui ui, Storage storage) {
+    public String execute(TaskList tasks, Ui ui, Storage storage) throws BongException {
         List<Task> matchingTasks = tasks.findTasks(keyword);
+        if (isSearchingArchive) {
+            return describeMatches(matchingTasks, findArchived(ui, storage));
+        }
         StringBuilder response = new StringBuilder();
 
         if (matchingTasks.isEmpty()) {
@@ -52,4 +74,28 @@ public class FindCommand extends Command {
         }
         return response.toString();
     }
+
+    private List<Task> findArchived(Ui ui, Storage storage) throws BongException {
+        try {
+            // Not put in a TaskList, which would give archived tasks sharing an id new ones
+            return TaskList.findTasks(storage.loadArchivedTasks(ui), keyword);
+        } catch (IOException e) {
+            throw new BongException("Error loading archived tasks: " + e.getMessage());
+        }
+    }
+
+    private static String describeMatches(List<Task> matchingTasks, List<Task> archivedMatches) {
+        if (matchingTasks.isEmpty() && archivedMatches.isEmpty()) {
+            return "No matching tasks found in your list or your archive.";
+        }
+        StringBuilder response = new StringBuilder("Here are the matching tasks in your list:\n");
+        for (int i = 0; i < matchingTasks.size(); i++) {
+            response.append(i + 1).append(". ").append(matchingTasks.get(i).toString()).append("\n");
+        }
+        response.append("And in your archive:\n");
+        for (int i = 0; i < archivedMatches.size(); i++) {
+            response.append(i + 1).append(". ").append(archivedMatches.get(i).toString()).append("\n");
+        }
+        return response.toString();
+    }
 }
@@ -19,23 +19,42 @@ public class HelpCommand extends Command {
                     "     deadline <description> /by <yyyy-MM-dd HHmm>\n" +
                     "3. Add an event task.\n" +
                     "     event <description> /from <yyyy-MM-dd HHmm> /to <yyyy-MM-dd HHmm>\n" +
-                    "4. List all tasks.\n" +
-                    "     list\n" +
+                    "4. List all tasks with their ids, or the archived ones.\n" +
+                    "     list (/archived)\n" +
                     "5. Mark task as done.\n" +
-                    "     mark <task number>\n" +
+                    "     mark <task number or #id>\n" +
                     "6. Mark task as not done.\n" +
-                    "     unmark <task number>\n" +
+                    "     unmark <task number or #id>\n" +
                     "7. Delete a task.\n" +
-                    "     delete <task number>\n" +
-                    "8. Find tasks whose description contains the keyword.\n" +
-                    "     find <keyword>\n" +
+                    "     delete <task number or #id>\n" +
+                    "8. Find tasks whose description contains the keyword, including archived ones with /all.\n" +
+                    "     find (/all) <keyword>\n" +
                     "9. Reschedule a deadline or an event task.\n" +
-                    "     snooze <task number> /to <yyyy-MM-dd HHmm> (/end <yyyy-MM-dd HHmm>)\n" +
-                    "10. Show this help message.\n" +
+                    "     snooze <task number or #id> /to <yyyy-MM-dd HHmm> (/end <yyyy-MM-dd HHmm>)\n" +
+                    "10. Archive completed tasks, or only those dated more than <days> ago.\n" +
+                    "       archive (<days>)\n" +
+                    "11. Take in the tasks of another task file, such as a copy from another machine.\n" +
+                    "       sync <file>\n" +
+                    "12. Show the task list as it was after the given number of changes (journal mode only).\n" +
+                    "       history (<changes>)\n" +
+                    "13. Show how long commands have been taking.\n" +
+                    "       stats\n" +
+                    "14. Show this help message.\n" +
                     "       help\n" +
-                    "11. Exit the application.\n" +
+                    "15. Exit the application.\n" +
                     "       bye\n";
 
+    /**
+     * Creates a HelpCommand.
+     * Parser calls this rather than the constructor so that, being typed as a plain Command,
+     * this rarely used class is only loaded when help is first asked for.
+     *
+     * @return A new HelpCommand.
+     */
+    public static Command create() {
+        return new HelpCommand();
+    }
+
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) {
         return HELP_TEXT;
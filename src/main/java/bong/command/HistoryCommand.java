@@ -0,0 +1,83 @@
+package bong.command;
+
+import bong.exception.BongException;
+import bong.storage.JournalStorage;
+import bong.storage.Storage;
+import bong.task.Task;
+import bong.task.TaskList;
+import bong.ui.Ui;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Represents a command to show the task list as it was after an earlier change, rebuilt from the journal.
+ * Only the event-sourced storage mode keeps the changes this needs.
+ * Inherits from Command.
+ */
+public class HistoryCommand extends Command {
+    private final long changes;
+
+    /**
+     * Constructs a HistoryCommand that reports how many changes the journal holds.
+     */
+    public HistoryCommand() {
+        this(-1);
+    }
+
+    /**
+     * Constructs a HistoryCommand.
+     *
+     * @param changes The number of changes after which to show the task list, or -1 to report how many there are.
+     */
+    public HistoryCommand(long changes) {
+        assert changes >= -1 : "number of changes must not be negative";
+        this.changes = changes;
+    }
+
+    public long getChanges() {
+        return this.changes;
+    }
+
+    /**
+     * Executes the history command.
+     * Replays the first changes of the journal onto the tasks it started from.
+     *
+     * @param tasks The TaskList object (not directly used).
+     * @param ui The Ui object for warnings about damaged records.
+     * @param storage The Storage object holding the journal.
+     * @return String message listing the tasks as they were, or how many changes there are.
+     * @throws BongException If storage keeps no journal, there were fewer changes, or the journal cannot be read.
+     */
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) throws BongException {
+        if (!(storage instanceof JournalStorage)) {
+            throw new BongException("Only the journal keeps past changes."
+                    + " Start Bong with -Dbong.storage=journal to keep them.");
+        }
+        JournalStorage journal = (JournalStorage) storage;
+        long recorded = journal.getEventCount();
+        if (changes < 0) {
+            return "The journal holds " + recorded + " changes. Try 'history <changes>' to see the list after them.";
+        }
+        if (changes > recorded) {
+            throw new BongException("The journal only holds " + recorded + " changes.");
+        }
+
+        List<Task> pastTasks;
+        try {
+            pastTasks = journal.loadTasksAt(ui, changes);
+        } catch (IOException e) {
+            throw new BongException("Error reading the journal: " + e.getMessage());
+        }
+        if (pastTasks.isEmpty()) {
+            return "After " + changes + " changes, your task list was empty.";
+        }
+        StringBuilder response = new StringBuilder("After ").append(changes)
+                .append(" changes, these were the tasks in your list:\n");
+        for (int i = 0; i < pastTasks.size(); i++) {
+            response.append(i + 1).append(". ").append(pastTasks.get(i).toString()).append("\n");
+        }
+        return response.toString();
+    }
+}
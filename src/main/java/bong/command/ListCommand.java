@@ -1,10 +1,12 @@
 package bong.command;
 
+import bong.exception.BongException;
 import bong.storage.Storage;
 import bong.task.Task;
 import bong.task.TaskList;
 import bong.ui.Ui;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -12,18 +14,44 @@ import java.util.List;
  * Inherits from the abstract Command class.
  */
 public class ListCommand extends Command {
+    private final boolean isListingArchived;
+
+    /**
+     * Constructs a ListCommand that lists the tasks in the TaskList.
+     */
+    public ListCommand() {
+        this(false);
+    }
+
+    /**
+     * Constructs a ListCommand.
+     *
+     * @param isListingArchived True to list the archived tasks instead of the current ones.
+     */
+    public ListCommand(boolean isListingArchived) {
+        this.isListingArchived = isListingArchived;
+    }
+
+    public boolean isListingArchived() {
+        return this.isListingArchived;
+    }
+
     /**
      * Executes the list command.
-     * It retrieves all tasks from the TaskList and returns a formatted string
+     * It retrieves all tasks from the TaskList, or from the archive, and returns a formatted string
      * containing the list of tasks.
      *
      * @param tasks The TaskList object containing the tasks.
-     * @param ui The Ui object (not directly used).
-     * @param storage The Storage object (not directly used).
+     * @param ui The Ui object for warnings about a damaged archive.
+     * @param storage The Storage object holding the archive.
      * @return String message containing the formatted list of tasks.
+     * @throws BongException If the archive cannot be read.
      */
     @Override
-    public String execute(TaskList tasks, Ui ui, Storage storage) {
+    public String execute(TaskList tasks, Ui ui, Storage storage) throws BongException {
+        if (isListingArchived) {
+            return listArchived(ui, storage);
+        }
         List<Task> currentTasks = tasks.getTasks();
         StringBuilder response = new StringBuilder();
 
@@ -32,9 +60,29 @@ public class ListCommand extends Command {
         } else {
             response.append("Here are the tasks in your list:\n");
             for (int i = 0; i < currentTasks.size(); i++) {
-                response.append(i + 1).append(". ").append(currentTasks.get(i).toString()).append("\n");
+                Task task = currentTasks.get(i);
+                // The id lets a task be named in later commands even after the numbers have shifted
+                response.append(i + 1).append(". ").append(task.toString())
+                        .append(" #").append(task.getId()).append("\n");
             }
         }
         return response.toString();
     }
+
+    private String listArchived(Ui ui, Storage storage) throws BongException {
+        List<Task> archivedTasks;
+        try {
+            archivedTasks = storage.loadArchivedTasks(ui);
+        } catch (IOException e) {
+            throw new BongException("Error loading archived tasks: " + e.getMessage());
+        }
+        if (archivedTasks.isEmpty()) {
+            return "Your archive is empty.";
+        }
+        StringBuilder response = new StringBuilder("Here are the archived tasks:\n");
+        for (int i = 0; i < archivedTasks.size(); i++) {
+            response.append(i + 1).append(". ").append(archivedTasks.get(i).toString()).append("\n");
+        }
+        return response.toString();
+    }
 }
@@ -3,6 +3,7 @@ package bong.command;
 import bong.exception.BongException;
 import bong.storage.Storage;
 import bong.task.Task;
+import bong.task.TaskEvent;
 import bong.task.TaskList;
 import bong.ui.Ui;
 
@@ -14,6 +15,8 @@ import java.io.IOException;
  */
 public class MarkCommand extends Command {
     private final int taskNumber;
+    // The id the task was given by, or 0 if it was given by position
+    private final long taskId;
 
     /**
      * Constructs a MarkCommand with the specified task number.
@@ -21,13 +24,33 @@ public class MarkCommand extends Command {
      * @param taskNumber The 1-based index of the task.
      */
     public MarkCommand(int taskNumber) {
+        this(taskNumber, 0);
+    }
+
+    private MarkCommand(int taskNumber, long taskId) {
         this.taskNumber = taskNumber;
+        this.taskId = taskId;
+    }
+
+    /**
+     * Constructs a MarkCommand for the task with the given id, wherever it is in the list.
+     *
+     * @param taskId The id of the task.
+     * @return A new MarkCommand.
+     */
+    public static MarkCommand forId(long taskId) {
+        assert taskId > 0 : "task ids must be positive";
+        return new MarkCommand(0, taskId);
     }
 
     public int getTaskNumber() {
         return this.taskNumber;
     }
 
+    public long getTaskId() {
+        return this.taskId;
+    }
+
     /**
      * Executes the mark command.
      * Marks the specified task as done, saves the updated list to storage,
@@ -41,12 +64,23 @@ public class MarkCommand extends Command {
      */
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) throws BongException {
-        Task markedTask = tasks.markTask(taskNumber);
+        int number = resolveTaskNumber(tasks, taskNumber, taskId);
+        Task markedTask = tasks.markTask(number);
         try {
-            storage.saveTasks(tasks.getTasks());
+            storage.saveTasks(tasks.getTasks(), new TaskEvent(TaskEvent.Type.MARKED, number - 1, markedTask));
         } catch (IOException e) {
             throw new BongException("Error saving tasks: " + e. getMessage());
         }
         return "Nice! I've marked this task as done:\n" + markedTask.toString();
     }
+
+    /**
+     * Indicates that this command changes the task list.
+     *
+     * @return True.
+     */
+    @Override
+    public boolean isModifying() {
+        return true;
+    }
 }
@@ -5,6 +5,7 @@ import bong.storage.Storage;
 import bong.task.Deadline;
 import bong.task.Event;
 import bong.task.Task;
+import bong.task.TaskEvent;
 import bong.task.TaskList;
 import bong.ui.Ui;
 import bong.util.DateTimeUtil;
@@ -19,6 +20,8 @@ import java.time.format.DateTimeParseException;
  */
 public class SnoozeCommand extends Command {
     private final int taskNumber;
+    // The id the task was given by, or 0 if it was given by position
+    private final long taskId;
     private final String newStartString;
     private final String newEndString;
 
@@ -30,43 +33,79 @@ public class SnoozeCommand extends Command {
      * @param newEndString New end datetime string for events.
      */
     public SnoozeCommand(int taskNumber, String newStartString, String newEndString) {
+        this(taskNumber, 0, newStartString, newEndString);
+    }
+
+    private SnoozeCommand(int taskNumber, long taskId, String newStartString, String newEndString) {
         this.taskNumber = taskNumber;
+        this.taskId = taskId;
         this.newStartString = newStartString;
         this.newEndString = newEndString;
     }
 
+    /**
+     * Creates a SnoozeCommand.
+     * Parser calls this rather than the constructor so that, being typed as a plain Command,
+     * this rarely used class is only loaded when a task is first snoozed.
+     *
+     * @param taskNumber 1-based index of task to snooze.
+     * @param newStartString New start / deadline datetime string.
+     * @param newEndString New end datetime string for events.
+     * @return A new SnoozeCommand.
+     */
+    public static Command create(int taskNumber, String newStartString, String newEndString) {
+        return new SnoozeCommand(taskNumber, newStartString, newEndString);
+    }
+
+    /**
+     * Creates a SnoozeCommand for the task with the given id, wherever it is in the list.
+     *
+     * @param taskId The id of the task to snooze.
+     * @param newStartString New start / deadline datetime string.
+     * @param newEndString New end datetime string for events.
+     * @return A new SnoozeCommand.
+     */
+    public static Command createForId(long taskId, String newStartString, String newEndString) {
+        assert taskId > 0 : "task ids must be positive";
+        return new SnoozeCommand(0, taskId, newStartString, newEndString);
+    }
+
+    public long getTaskId() {
+        return this.taskId;
+    }
+
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) throws BongException {
-        Task task = tasks.getTask(taskNumber);
+        int number = resolveTaskNumber(tasks, taskNumber, taskId);
+        Task task = tasks.getTask(number);
 
         if (task instanceof Deadline) {
-            snoozeDeadline((Deadline) task, tasks, storage);
+            snoozeDeadline(number, tasks, storage);
             return "Snoozed deadline:\n" + task.toString();
         }
 
         if (task instanceof Event) {
-            snoozeEvent((Event) task, tasks, storage);
+            snoozeEvent(number, tasks, storage);
             return "Snoozed event:\n" + task.toString();
         }
 
         throw new BongException("Cannot snooze task type - only deadlines and events can be snoozed.");
     }
 
-    private void snoozeDeadline(Deadline deadline, TaskList tasks, Storage storage) throws BongException {
+    private void snoozeDeadline(int number, TaskList tasks, Storage storage) throws BongException {
         LocalDateTime newDeadline = parseDate(newStartString, "new deadline");
-        deadline.setDeadline(newDeadline);
-        saveTasks(tasks, storage);
+        Deadline deadline = tasks.rescheduleDeadline(number, newDeadline);
+        saveTasks(number, deadline, tasks, storage);
     }
 
-    private void snoozeEvent(Event event, TaskList tasks, Storage storage) throws BongException {
+    private void snoozeEvent(int number, TaskList tasks, Storage storage) throws BongException {
         if (newEndString == null || newEndString.isBlank()) {
             throw new BongException("Snoozing an event requires both new start and end times.");
         }
         LocalDateTime newStart = parseDate(newStartString, "event start");
         LocalDateTime newEnd = parseDate(newEndString, "event end");
-        event.setStart(newStart);
-        event.setEnd(newEnd);
-        saveTasks(tasks, storage);
+        Event event = tasks.rescheduleEvent(number, newStart, newEnd);
+        saveTasks(number, event, tasks, storage);
     }
 
     private LocalDateTime parseDate(String value, String fieldDescription) throws BongException {
@@ -80,11 +119,21 @@ public class SnoozeCommand extends Command {
         }
     }
 
-    private void saveTasks(TaskList tasks, Storage storage) throws BongException {
+    private void saveTasks(int number, Task task, TaskList tasks, Storage storage) throws BongException {
         try {
-            storage.saveTasks(tasks.getTasks());
+            storage.saveTasks(tasks.getTasks(), new TaskEvent(TaskEvent.Type.RESCHEDULED, number - 1, task));
         } catch (IOException e) {
             throw new BongException("Failed to save tasks after snooze: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Indicates that this command changes the task list.
+     *
+     * @return True.
+     */
+    @Override
+    public boolean isModifying() {
+        return true;
+    }
+}
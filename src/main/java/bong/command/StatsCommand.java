@@ -0,0 +1,25 @@
+package bong.command;
+
+import bong.metrics.CommandMetrics;
+import bong.storage.Storage;
+import bong.task.TaskList;
+import bong.ui.Ui;
+
+/**
+ * Represents a command that shows latency statistics of the commands run so far.
+ * Inherits from Command.
+ */
+public class StatsCommand extends Command {
+    /**
+     * Executes the stats command.
+     *
+     * @param tasks The TaskList object (not directly used).
+     * @param ui The Ui object (not directly used).
+     * @param storage The Storage object (not directly used).
+     * @return String message with per-command latency percentiles and counts.
+     */
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) {
+        return CommandMetrics.getInstance().getReport();
+    }
+}
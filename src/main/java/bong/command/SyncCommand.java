@@ -0,0 +1,270 @@
+package bong.command;
+
+import bong.exception.BongException;
+import bong.storage.Storage;
+import bong.storage.TaskMerkleTree;
+import bong.storage.TaskMerkleTree.Difference;
+import bong.task.Deadline;
+import bong.task.Event;
+import bong.task.Task;
+import bong.task.TaskEvent;
+import bong.task.TaskList;
+import bong.task.TaskListListener;
+import bong.ui.Ui;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Represents a command to take in the tasks of another task file, such as a copy kept on another machine.
+ * The two files are compared through Merkle trees of their records, so only the tasks that differ are looked at.
+ * Tasks are matched by id, so a task keeps its id when it is added here and is matched with itself from then on.
+ * Two copies can give the same id to different tasks, each added in one copy; their stamps tell them apart, and
+ * the other copy's task is added here under a new id, by which stamp it is matched with from then on.
+ * Tasks only in the other file are added and tasks done there are marked done here. A task that is different
+ * in any other way in the two files, such as renamed or with other dates, is a conflict: it is left as it is
+ * here and reported.
+ * The other file is only read; syncing from the other machine brings this file's changes over there.
+ * Inherits from Command.
+ */
+public class SyncCommand extends Command {
+    // Trees kept between syncs: a task list's tree follows the list's changes, and another file's tree is
+    // reused until the file changes, so a sync only hashes the records that changed since the last one
+    private static final Map<TaskList, TaskMerkleTree> LIST_TREES = new WeakHashMap<>();
+    private static final Map<Path, OtherFile> OTHER_FILES = new HashMap<>();
+
+    private final String otherFilePath;
+
+    /**
+     * Another task file as it was last loaded, with its tree.
+     */
+    private static final class OtherFile {
+        private final Storage storage;
+        private final List<Task> tasks;
+        private TaskMerkleTree tree;
+
+        private OtherFile(Storage storage, List<Task> tasks) {
+            this.storage = storage;
+            this.tasks = tasks;
+        }
+    }
+
+    /**
+     * Constructs a SyncCommand with the path of the file to take tasks from.
+     *
+     * @param otherFilePath Path of the other task file.
+     */
+    public SyncCommand(String otherFilePath) {
+        assert otherFilePath != null && !otherFilePath.isEmpty() : "file path must not be empty";
+        this.otherFilePath = otherFilePath;
+    }
+
+    public String getOtherFilePath() {
+        return this.otherFilePath;
+    }
+
+    /**
+     * Executes the sync command.
+     * Loads the other file, merges the tasks that differ into the TaskList and saves it.
+     *
+     * @param tasks The TaskList object to merge tasks into.
+     * @param ui The Ui object for warnings about corrupted lines in the other file.
+     * @param storage The Storage object to save the merged tasks.
+     * @return String message summarising the changes and listing any conflicts.
+     * @throws BongException If the other file is missing or cannot be read, or saving fails.
+     */
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) throws BongException {
+        Path otherPath = Path.of(otherFilePath).toAbsolutePath();
+        if (Files.notExists(otherPath)) {
+            throw new BongException("There is no task file at " + otherFilePath);
+        }
+        OtherFile other;
+        try {
+            other = loadOtherFile(otherPath, ui);
+        } catch (IOException e) {
+            throw new BongException("Error reading " + otherFilePath + ": " + e.getMessage());
+        }
+
+        // A copy written before tasks had ids can only be matched by description
+        boolean isKeyedById = other.tasks.stream().anyMatch(task -> task.getId() != 0);
+        int depth = TaskMerkleTree.depthFor(Math.max(tasks.size(), other.tasks.size()));
+        TaskMerkleTree ourTree = isKeyedById
+                ? treeOf(tasks, depth)
+                : TaskMerkleTree.build(tasks.getTasks(), depth, false);
+        if (other.tree == null || other.tree.getDepth() != ourTree.getDepth()) {
+            other.tree = TaskMerkleTree.build(other.tasks, ourTree.getDepth(), isKeyedById);
+        }
+        List<Difference> differences = ourTree.diff(other.tree);
+
+        int added = 0;
+        int marked = 0;
+        // Our task and theirs for each conflict
+        List<Task[]> conflicts = new ArrayList<>();
+        // The changes are saved as events, so that the journal's history includes them
+        List<TaskEvent> events = new ArrayList<>();
+        TaskListListener recorder = events::add;
+        tasks.addListener(recorder);
+        try {
+            for (Difference difference : differences) {
+                Task theirs = difference.getTheirs();
+                if (theirs == null) {
+                    // Kept: without a common ancestor, a task deleted there cannot be told from one added here
+                    continue;
+                }
+                Task ours = difference.getOurs();
+                if (ours == null || isOtherTask(ours, theirs)) {
+                    // Their task may be here under another id, if it clashed with ours when it was taken in
+                    ours = findByStamp(tasks, theirs.getStamp());
+                }
+                if (ours == null) {
+                    // A task added there by hand has no id yet, so it may have been taken in by an earlier sync
+                    if (theirs.getId() == 0 && containsSameTask(tasks, theirs)) {
+                        continue;
+                    }
+                    // Given a new id if one of ours already has its id
+                    tasks.addTask(theirs);
+                    added++;
+                } else if (!hasSameContent(ours, theirs)) {
+                    conflicts.add(new Task[] {ours, theirs});
+                } else if (theirs.isDone() && !ours.isDone()) {
+                    tasks.markTask(tasks.getTaskNumber(ours.getId()));
+                    marked++;
+                }
+            }
+        } finally {
+            tasks.removeListener(recorder);
+        }
+        if (added > 0) {
+            // The added tasks are now in this list too, so the other file's copies must not be reused
+            forgetOtherFile(otherPath);
+        }
+
+        if (added + marked > 0) {
+            try {
+                storage.saveTasks(tasks.getTasks(), events);
+            } catch (IOException e) {
+                throw new BongException("Error saving tasks: " + e.getMessage());
+            }
+        }
+        return describe(added, marked, conflicts);
+    }
+
+    /**
+     * Returns the other file's tasks, loading them again only if the file has changed since they were loaded.
+     */
+    private static OtherFile loadOtherFile(Path path, Ui ui) throws IOException {
+        synchronized (OTHER_FILES) {
+            OtherFile other = OTHER_FILES.get(path);
+            if (other == null || other.storage.isChangedExternally()) {
+                Storage otherStorage = new Storage(path.toString());
+                other = new OtherFile(otherStorage, otherStorage.loadTasks(ui));
+                OTHER_FILES.put(path, other);
+            }
+            return other;
+        }
+    }
+
+    private static void forgetOtherFile(Path path) {
+        synchronized (OTHER_FILES) {
+            OTHER_FILES.remove(path);
+        }
+    }
+
+    /**
+     * Returns the tree keyed by id that follows the task list, building it on the first sync
+     * and again only if the list has outgrown it.
+     */
+    private static TaskMerkleTree treeOf(TaskList tasks, int depth) {
+        synchronized (LIST_TREES) {
+            TaskMerkleTree tree = LIST_TREES.get(tasks);
+            if (tree == null || tree.getDepth() < depth) {
+                if (tree != null) {
+                    tasks.removeListener(tree);
+                }
+                tree = TaskMerkleTree.build(tasks.getTasks(), depth, true);
+                tasks.addListener(tree);
+                LIST_TREES.put(tasks, tree);
+            }
+            return tree;
+        }
+    }
+
+    /**
+     * Returns whether the two tasks with the same id are different tasks, given their ids by different copies.
+     * Tasks from before stamps were kept may be the same task, edited in one copy.
+     */
+    private static boolean isOtherTask(Task ours, Task theirs) {
+        return ours.getStamp() != 0 && theirs.getStamp() != 0 && ours.getStamp() != theirs.getStamp();
+    }
+
+    private static Task findByStamp(TaskList tasks, int stamp) {
+        if (stamp == 0) {
+            return null;
+        }
+        for (Task ours : tasks.getTasks()) {
+            if (ours.getStamp() == stamp) {
+                return ours;
+            }
+        }
+        return null;
+    }
+
+    private static boolean containsSameTask(TaskList tasks, Task task) {
+        for (Task ours : tasks.getTasks()) {
+            if (hasSameContent(ours, task)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the two tasks are of the same kind with the same description and dates.
+     */
+    private static boolean hasSameContent(Task a, Task b) {
+        if (a.getClass() != b.getClass() || !a.getDescription().equals(b.getDescription())) {
+            return false;
+        }
+        if (a instanceof Deadline) {
+            return ((Deadline) a).getDeadline().equals(((Deadline) b).getDeadline());
+        } else if (a instanceof Event) {
+            return ((Event) a).getStart().equals(((Event) b).getStart())
+                    && ((Event) a).getEnd().equals(((Event) b).getEnd());
+        }
+        return true;
+    }
+
+    private String describe(int added, int marked, List<Task[]> conflicts) {
+        StringBuilder response = new StringBuilder();
+        if (added + marked == 0 && conflicts.isEmpty()) {
+            return "Your tasks already have everything in " + otherFilePath + ".";
+        }
+        response.append("Synced with ").append(otherFilePath).append(": added ").append(added)
+                .append(" tasks and marked ").append(marked).append(" as done.");
+        if (!conflicts.isEmpty()) {
+            response.append("\nThese tasks are different there, so I've left them as they are here:");
+            for (Task[] conflict : conflicts) {
+                response.append("\n  here:  ").append(conflict[0])
+                        .append("\n  there: ").append(conflict[1]);
+            }
+        }
+        return response.toString();
+    }
+
+    /**
+     * Indicates that this command changes the task list.
+     *
+     * @return True.
+     */
+    @Override
+    public boolean isModifying() {
+        return true;
+    }
+}
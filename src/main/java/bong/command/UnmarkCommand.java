@@ -3,6 +3,7 @@ package bong.command;
 import bong.exception.BongException;
 import bong.storage.Storage;
 import bong.task.Task;
+import bong.task.TaskEvent;
 import bong.task.TaskList;
 import bong.ui.Ui;
 
@@ -14,6 +15,8 @@ import java.io.IOException;
  */
 public class UnmarkCommand extends Command {
     private final int taskNumber;
+    // The id the task was given by, or 0 if it was given by position
+    private final long taskId;
 
     /**
      * Constructs a UnmarkCommand with the specified task number.
@@ -21,7 +24,23 @@ public class UnmarkCommand extends Command {
      * @param taskNumber The 1-based index of the task.
      */
     public UnmarkCommand(int taskNumber) {
+        this(taskNumber, 0);
+    }
+
+    private UnmarkCommand(int taskNumber, long taskId) {
         this.taskNumber = taskNumber;
+        this.taskId = taskId;
+    }
+
+    /**
+     * Constructs a UnmarkCommand for the task with the given id, wherever it is in the list.
+     *
+     * @param taskId The id of the task.
+     * @return A new UnmarkCommand.
+     */
+    public static UnmarkCommand forId(long taskId) {
+        assert taskId > 0 : "task ids must be positive";
+        return new UnmarkCommand(0, taskId);
     }
 
     /**
@@ -37,12 +56,23 @@ public class UnmarkCommand extends Command {
      */
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) throws BongException {
-        Task unmarkedTask = tasks.unmarkTask(taskNumber);
+        int number = resolveTaskNumber(tasks, taskNumber, taskId);
+        Task unmarkedTask = tasks.unmarkTask(number);
         try {
-            storage.saveTasks(tasks.getTasks());
+            storage.saveTasks(tasks.getTasks(), new TaskEvent(TaskEvent.Type.UNMARKED, number - 1, unmarkedTask));
         } catch (IOException e) {
             throw new BongException("Error saving tasks: " + e. getMessage());
         }
         return "Nice! I've marked this task as not done yet:\n" + unmarkedTask.toString();
     }
+
+    /**
+     * Indicates that this command changes the task list.
+     *
+     * @return True.
+     */
+    @Override
+    public boolean isModifying() {
+        return true;
+    }
 }
@@ -0,0 +1,40 @@
+package bong.gui;
+
+/**
+ * Represents a single message in the chat transcript.
+ * Only the text and the speaker are kept, so that old messages are cheap to hold
+ * and can be written out to the transcript archive.
+ */
+public class ChatMessage {
+
+    /**
+     * Represents who a message came from, which decides how it is displayed.
+     */
+    public enum Speaker {
+        USER, BONG, ERROR
+    }
+
+    private final Speaker speaker;
+    private final String text;
+
+    /**
+     * Constructs a ChatMessage.
+     *
+     * @param speaker Who the message came from.
+     * @param text The message text.
+     */
+    public ChatMessage(Speaker speaker, String text) {
+        assert speaker != null : "speaker must not be null";
+        assert text != null : "message text must not be null";
+        this.speaker = speaker;
+        this.text = text;
+    }
+
+    public Speaker getSpeaker() {
+        return this.speaker;
+    }
+
+    public String getText() {
+        return this.text;
+    }
+}
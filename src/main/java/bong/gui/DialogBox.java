@@ -1,63 +1,100 @@
 package bong.gui;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 import javafx.scene.shape.Circle;
 
-import java.io.IOException;
-import java.util.Collections;
-
 /**
  * Represents a dialog box to display text and an image in a chat interface.
+ * The nodes are built directly in code rather than loaded from FXML, and a list cell keeps one dialog box
+ * and shows each of its messages in it, so scrolling the transcript does not build new nodes.
  */
 public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
+    private static final String STYLESHEET = DialogBox.class.getResource("/css/dialog-box.css").toExternalForm();
+    private static final double PICTURE_SIZE = 50;
+    private static final Insets PADDING = new Insets(6.0);
+
+    private final Label dialog;
+    private final ImageView displayPicture;
 
     /**
-     * Constructs a DialogBox with the given text and image.
-     *
-     * @param text Text content for the dialog box.
-     * @param image Image for the speaker.
+     * Constructs an empty DialogBox, for a list cell to show its messages in.
      */
-    private DialogBox(String text, Image image) {
-        FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/view/DialogBox.fxml"));
-        fxmlLoader.setRoot(this);
-        fxmlLoader.setController(this);
-        try {
-            fxmlLoader.load();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    public DialogBox() {
+        dialog = new Label();
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        dialog.setWrapText(true);
 
-        dialog.setText(text);
-        displayPicture.setImage(image);
+        displayPicture = new ImageView();
+        displayPicture.setId("displayPicture");
+        displayPicture.setFitHeight(PICTURE_SIZE);
+        displayPicture.setFitWidth(PICTURE_SIZE);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
+        displayPicture.setClip(createAvatarClip());
 
-        // Circular image
-        Circle clip = new Circle(25, 25, 25);
-        displayPicture.setClip(clip);
+        setAlignment(Pos.TOP_RIGHT);
+        setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        setPrefWidth(400.0);
+        setPadding(PADDING);
+        getStylesheets().add(STYLESHEET);
+        getChildren().setAll(dialog, displayPicture);
+    }
 
+    /**
+     * Creates the circular clip for a display picture.
+     * A clip node can only belong to one picture, so each dialog box needs its own.
+     *
+     * @return A circle matching the display picture size.
+     */
+    private static Circle createAvatarClip() {
+        double radius = PICTURE_SIZE / 2;
+        return new Circle(radius, radius, radius);
     }
 
     /**
-     * Flips the dialog box such that the ImageView is on the left and text on the right.
+     * Shows a message in this dialog box, styled and aligned for whoever said it:
+     * the user's messages on the right, Bong's replies and errors on the left.
+     *
+     * @param speaker Who said the message.
+     * @param text The message text.
+     * @param image The speaker's display picture.
      */
-    private void flip() {
-        ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
-        Collections.reverse(tmp);
-        getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
-        dialog.getStyleClass().add("reply-label");
+    public void show(ChatMessage.Speaker speaker, String text, Image image) {
+        assert text != null : "dialog text must not be null";
+        assert image != null : "image must not be null";
+        dialog.setText(text);
+        displayPicture.setImage(image);
+        dialog.getStyleClass().removeAll("reply-label", "error-label");
+        getStyleClass().remove("error-box");
+        switch (speaker) {
+        case USER:
+            arrange(dialog, displayPicture, Pos.TOP_RIGHT);
+            break;
+        case ERROR:
+            arrange(displayPicture, dialog, Pos.TOP_LEFT);
+            dialog.getStyleClass().add("error-label");
+            getStyleClass().add("error-box");
+            break;
+        default:
+            arrange(displayPicture, dialog, Pos.TOP_LEFT);
+            dialog.getStyleClass().add("reply-label");
+            break;
+        }
+    }
+
+    private void arrange(Node first, Node second, Pos alignment) {
+        // Reordering the children relays out the box, so it is only done when the speaker's side changes
+        if (getChildren().get(0) != first) {
+            getChildren().setAll(first, second);
+        }
+        setAlignment(alignment);
     }
 
     /**
@@ -68,11 +105,8 @@ public class DialogBox extends HBox {
      * @return A DialogBox instance configured for a user message.
      */
     public static DialogBox getUserDialog(String text, Image img) {
-        assert text != null : "dialog text must not be null";
-        assert img != null : "image must not be null";
-        DialogBox db = new DialogBox(text, img);
-        db.setAlignment(Pos.TOP_RIGHT);
-        db.getStyleClass().remove("reply-label");
+        DialogBox db = new DialogBox();
+        db.show(ChatMessage.Speaker.USER, text, img);
         return db;
     }
 
@@ -84,27 +118,21 @@ public class DialogBox extends HBox {
      * @return A DialogBox instance configured for Bong's message.
      */
     public static DialogBox getBongDialog(String text, Image img) {
-        assert text != null : "dialog text must not be null";
-        assert img != null : "image must not be null";
-        DialogBox db = new DialogBox(text, img);
-        db.flip();
+        DialogBox db = new DialogBox();
+        db.show(ChatMessage.Speaker.BONG, text, img);
         return db;
     }
 
     /**
      * Creates a DialogBox that highlights an error message, styled and aligned to the left.
      *
-     * @param text
-     * @param img
-     * @return
+     * @param text The error message.
+     * @param img Bong's display picture.
+     * @return A DialogBox instance configured for an error message.
      */
     public static DialogBox getErrorDialog(String text, Image img) {
-        DialogBox db = new DialogBox(text, img);
-        db.getChildren().setAll(db.displayPicture, db.dialog);
-        db.setAlignment(Pos.TOP_LEFT);
-        db.dialog.getStyleClass().remove("reply-label");
-        db.dialog.getStyleClass().add("error-label");
-        db.getStyleClass().add("error-box");
+        DialogBox db = new DialogBox();
+        db.show(ChatMessage.Speaker.ERROR, text, img);
         return db;
     }
 }
@@ -4,6 +4,7 @@ import bong.BongCore;
 import java.io.IOException;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.layout.AnchorPane;
@@ -21,7 +22,6 @@ public class Main extends Application {
     @Override
     public void start(Stage stage) {
         try {
-            bongCore = new BongCore();
             FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("/view/MainWindow.fxml"));
 
             AnchorPane ap = fxmlLoader.load();
@@ -30,7 +30,13 @@ public class Main extends Application {
             stage.setTitle("Bong");
             stage.setMinHeight(220);
             stage.setMinWidth(417);
-            fxmlLoader.<MainWindow>getController().setBongCore(bongCore);
+
+            // Show the window right away and let the task file load behind it
+            MainWindow mainWindow = fxmlLoader.getController();
+            bongCore = BongCore.createLoadingInBackground(
+                    progress -> Platform.runLater(() -> mainWindow.showLoadProgress(progress)),
+                    warning -> Platform.runLater(() -> mainWindow.showWarning(warning)));
+            mainWindow.setBongCore(bongCore);
             stage.show();
         } catch (IOException e) {
             e.printStackTrace();
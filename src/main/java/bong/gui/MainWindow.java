@@ -5,42 +5,161 @@ import bong.BongCore;
 
 import bong.command.Command;
 import bong.exception.BongException;
+import bong.metrics.RenderEvent;
 import bong.parser.Parser;
+import bong.task.Task;
+import bong.task.TaskIndex;
+import bong.util.DateTimeUtil;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Controller for the main GUI.
  */
 public class MainWindow extends AnchorPane {
+    // Every message is also written here, so the window only needs to keep the latest ones
+    private static final String TRANSCRIPT_PATH = "data/transcript.txt";
+    // System property for how many messages stay in the window before older ones are dropped
+    private static final String WINDOW_SIZE_PROPERTY = "bong.transcript.window";
+    private static final int DEFAULT_WINDOW_SIZE = 200;
+    private static final int PAGE_SIZE = 50;
+    private static final String FILTER_ALL = "All tasks";
+    private static final String FILTER_PENDING = "Not done";
+    private static final String FILTER_DONE = "Done";
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(150);
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<ChatMessage> transcript;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
+    @FXML
+    private ProgressIndicator busyIndicator;
+    @FXML
+    private TextField searchField;
+    @FXML
+    private ChoiceBox<String> statusFilter;
+    @FXML
+    private TableView<Task> taskTable;
+    @FXML
+    private TableColumn<Task, String> typeColumn;
+    @FXML
+    private TableColumn<Task, String> statusColumn;
+    @FXML
+    private TableColumn<Task, String> descriptionColumn;
+    @FXML
+    private TableColumn<Task, LocalDateTime> startColumn;
+    @FXML
+    private TableColumn<Task, LocalDateTime> endColumn;
 
     private BongCore bongCore;
 
-    private Image userImage = new Image(this.getClass().getResourceAsStream("/images/UserCat.png"));
-    private Image bongImage = new Image(this.getClass().getResourceAsStream("/images/BongCat.png"));
+    // A single worker runs commands in the order they were typed, off the FX thread
+    private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bong-command");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Commands submitted but not yet answered; only touched on the FX thread
+    private int pendingCommands;
+
+    private final ObservableList<ChatMessage> messages = FXCollections.observableArrayList();
+    private final int windowSize = Integer.getInteger(WINDOW_SIZE_PROPERTY, DEFAULT_WINDOW_SIZE);
+    private TranscriptArchive archive;
+    // Archive index of the oldest message currently in the window
+    private int windowStart;
+
+    private final TaskTableModel taskTableModel = new TaskTableModel();
+
+    // Searches run here so that typing never waits on the index; only the latest search matters
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bong-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
+    private volatile TaskIndex taskIndex;
+    private Future<?> pendingSearch;
+    // Incremented for every search so results of superseded searches can be ignored
+    private long searchGeneration;
+
+    // Avatars are decoded on first use, in the background, rather than while the window is being built
+    private Image userImage;
+    private Image bongImage;
 
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        transcript.setItems(messages);
+        transcript.setCellFactory(list -> new MessageCell());
+
+        try {
+            archive = new TranscriptArchive(TRANSCRIPT_PATH);
+        } catch (IOException e) {
+            // Without an archive the window simply keeps every message
+            archive = null;
+        }
+
+        initialiseTaskTable();
 
         sendButton.setOnAction(event -> handleUserInput());
         userInput.setOnAction(event -> handleUserInput());
     }
 
+    private void initialiseTaskTable() {
+        typeColumn.setCellValueFactory(row -> new ReadOnlyStringWrapper(TaskTableModel.typeOf(row.getValue())));
+        statusColumn.setCellValueFactory(row -> new ReadOnlyStringWrapper(row.getValue().getStatusIcon()));
+        descriptionColumn.setCellValueFactory(row -> new ReadOnlyStringWrapper(row.getValue().getDescription()));
+        startColumn.setCellValueFactory(row -> new ReadOnlyObjectWrapper<>(TaskTableModel.startOf(row.getValue())));
+        endColumn.setCellValueFactory(row -> new ReadOnlyObjectWrapper<>(TaskTableModel.endOf(row.getValue())));
+        startColumn.setCellFactory(column -> new TaskDateCell());
+        endColumn.setCellFactory(column -> new TaskDateCell());
+
+        taskTableModel.getSortedTasks().comparatorProperty().bind(taskTable.comparatorProperty());
+        taskTable.setItems(taskTableModel.getSortedTasks());
+
+        searchDebounce.setOnFinished(event -> runSearch(searchField.getText()));
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> searchDebounce.playFromStart());
+
+        statusFilter.getItems().setAll(FILTER_ALL, FILTER_PENDING, FILTER_DONE);
+        statusFilter.setValue(FILTER_ALL);
+        statusFilter.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (FILTER_PENDING.equals(newValue)) {
+                taskTableModel.setFilter(task -> !task.isDone());
+            } else if (FILTER_DONE.equals(newValue)) {
+                taskTableModel.setFilter(Task::isDone);
+            } else {
+                taskTableModel.setFilter(null);
+            }
+        });
+    }
+
     /**
      * Injects the BongCore instance into this controller.
      * This method is called by Main after loading the FXML.
@@ -50,14 +169,79 @@ public class MainWindow extends AnchorPane {
     public void setBongCore(BongCore b) {
         assert b != null : "BongCore must not be null when injected into controller";
         bongCore = b;
-      
+
         String welcomeMessage = bongCore.getWelcomeMessage();
-        dialogContainer.getChildren().add(DialogBox.getBongDialog(welcomeMessage, bongImage));
+        addMessage(new ChatMessage(ChatMessage.Speaker.BONG, welcomeMessage));
+
+        // Subscribe under BongCore's lock so the snapshot and the events that follow it line up,
+        // on the command thread so the window never waits for the tasks to load
+        commandExecutor.execute(() -> bongCore.withTaskList(taskList -> {
+            List<Task> snapshot = new ArrayList<>(taskList.getTasks());
+            taskList.addListener(taskTableModel);
+            TaskIndex index = new TaskIndex(snapshot);
+            taskList.addListener(index);
+            taskIndex = index;
+            Platform.runLater(() -> taskTableModel.reset(snapshot));
+        }));
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Duke's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * Looks up the query in the task index on the search thread and narrows the task table
+     * to the results. Any search still running is cancelled first.
+     *
+     * @param query The text in the search box.
+     */
+    private void runSearch(String query) {
+        if (pendingSearch != null) {
+            pendingSearch.cancel(true);
+        }
+        long generation = ++searchGeneration;
+        pendingSearch = searchExecutor.submit(() -> {
+            TaskIndex index = taskIndex;
+            if (index == null) {
+                return;
+            }
+            Set<Task> matches = index.search(query);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            Platform.runLater(() -> {
+                if (generation == searchGeneration) {
+                    taskTableModel.setSearchMatches(matches);
+                }
+            });
+        });
+    }
+
+    /**
+     * Shows how much of the task file has been loaded. Runs on the FX thread.
+     *
+     * @param progress Fraction of the file loaded, between 0 and 1.
+     */
+    public void showLoadProgress(double progress) {
+        if (progress >= 1.0) {
+            busyIndicator.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+            busyIndicator.setVisible(pendingCommands > 0);
+            return;
+        }
+        busyIndicator.setProgress(progress);
+        busyIndicator.setVisible(true);
+    }
+
+    /**
+     * Shows a warning from BongCore, such as a damaged line in the task file, in the transcript.
+     * Runs on the FX thread.
+     *
+     * @param warning The warning text.
+     */
+    public void showWarning(String warning) {
+        addMessage(new ChatMessage(ChatMessage.Speaker.ERROR, warning));
+    }
+
+    /**
+     * Adds a message echoing user input and hands the command to the background worker.
+     * Bong's reply is added once the command has run, which waits for the tasks to finish
+     * loading if necessary. Clears the user input straight away so the user can keep typing.
      */
     @FXML
     private void handleUserInput() {
@@ -66,34 +250,161 @@ public class MainWindow extends AnchorPane {
             return;
         }
 
-        dialogContainer.getChildren().add(
-                DialogBox.getUserDialog(input, userImage)
-        );
+        addMessage(new ChatMessage(ChatMessage.Speaker.USER, input));
+        userInput.clear();
 
-        String response = bongCore.getResponse(input);
+        pendingCommands++;
+        busyIndicator.setVisible(true);
+        commandExecutor.execute(() -> {
+            String response = bongCore.getResponse(input);
+            boolean isExit = isExitCommand(input);
+            Platform.runLater(() -> showResponse(response, isExit));
+        });
+    }
 
+    /**
+     * Shows Bong's reply to a command. Runs on the FX thread.
+     *
+     * @param response The response returned by BongCore.
+     * @param isExit Whether the command asked the application to exit.
+     */
+    private void showResponse(String response, boolean isExit) {
         boolean isError = false;
         String lower = response.toLowerCase();
         if (lower.startsWith("error:") || lower.contains("unexpected error")) {
             isError = true;
         }
 
-        if (isError) {
-            dialogContainer.getChildren().add(DialogBox.getErrorDialog(response, bongImage));
-        } else {
-            dialogContainer.getChildren().add(DialogBox.getBongDialog(response, bongImage));
+        addMessage(new ChatMessage(isError ? ChatMessage.Speaker.ERROR : ChatMessage.Speaker.BONG, response));
+
+        pendingCommands--;
+        busyIndicator.setVisible(pendingCommands > 0);
+
+        // The command may have added or removed tasks that the current search should include
+        if (!searchField.getText().isBlank()) {
+            runSearch(searchField.getText());
         }
 
-        userInput.clear();
+        if (isExit) {
+            commandExecutor.shutdown();
+            Platform.exit();
+        }
+    }
 
+    private static boolean isExitCommand(String input) {
         try {
             Command parsedCommand = Parser.parse(input);
-            if (parsedCommand.isExit()) {
-                Platform.exit();
-            }
+            return parsedCommand.isExit();
         } catch (BongException ignored) {
+            return false;
+        }
+    }
+
+    /**
+     * Appends a message to the transcript, archiving it in the background and dropping the oldest
+     * messages from the window once it grows past the configured size.
+     *
+     * @param message The message to show.
+     */
+    private void addMessage(ChatMessage message) {
+        if (archive != null) {
+            try {
+                archive.append(message);
+            } catch (IOException e) {
+                archive = null;
+            }
+        }
+        messages.add(message);
 
+        int excess = messages.size() - windowSize;
+        if (archive != null && excess > 0) {
+            messages.remove(0, excess);
+            windowStart += excess;
         }
+        transcript.scrollTo(messages.size() - 1);
     }
-}
 
+    /**
+     * Pages the previous batch of archived messages back into the window.
+     * Called when the user has scrolled up to the oldest message in the window.
+     */
+    private void loadEarlierMessages() {
+        if (archive == null || windowStart == 0) {
+            return;
+        }
+        int from = Math.max(0, windowStart - PAGE_SIZE);
+        try {
+            List<ChatMessage> earlier = archive.read(from, windowStart);
+            messages.addAll(0, earlier);
+            windowStart = from;
+            transcript.scrollTo(earlier.size());
+        } catch (IOException e) {
+            archive = null;
+        }
+    }
+
+    private Image getUserImage() {
+        if (userImage == null) {
+            userImage = loadImage("/images/UserCat.png");
+        }
+        return userImage;
+    }
+
+    private Image getBongImage() {
+        if (bongImage == null) {
+            bongImage = loadImage("/images/BongCat.png");
+        }
+        return bongImage;
+    }
+
+    private Image loadImage(String resource) {
+        return new Image(this.getClass().getResource(resource).toExternalForm(), true);
+    }
+
+    /**
+     * Renders a single message in a DialogBox. Only the cells on screen exist, and they are reused
+     * as the user scrolls, each showing its messages in the one DialogBox it keeps.
+     */
+    private class MessageCell extends ListCell<ChatMessage> {
+        private final DialogBox box = new DialogBox();
+
+        private MessageCell() {
+            box.prefWidthProperty().bind(transcript.widthProperty().subtract(20));
+        }
+
+        @Override
+        protected void updateItem(ChatMessage message, boolean empty) {
+            super.updateItem(message, empty);
+            if (empty || message == null) {
+                setGraphic(null);
+                return;
+            }
+
+            RenderEvent renderEvent = new RenderEvent();
+            renderEvent.begin();
+            Image image = message.getSpeaker() == ChatMessage.Speaker.USER ? getUserImage() : getBongImage();
+            box.show(message.getSpeaker(), message.getText(), image);
+            setGraphic(box);
+            if (renderEvent.shouldCommit()) {
+                renderEvent.speaker = message.getSpeaker().name();
+                renderEvent.characters = message.getText().length();
+                renderEvent.commit();
+            }
+
+            if (getIndex() == 0 && windowStart > 0) {
+                Platform.runLater(MainWindow.this::loadEarlierMessages);
+            }
+        }
+    }
+
+    /**
+     * Shows a date column value in the same format as the chat output.
+     */
+    private static class TaskDateCell extends TableCell<Task, LocalDateTime> {
+        @Override
+        protected void updateItem(LocalDateTime date, boolean empty) {
+            super.updateItem(date, empty);
+            setText(empty || date == null ? null : date.format(DateTimeUtil.OUTPUT));
+        }
+    }
+}
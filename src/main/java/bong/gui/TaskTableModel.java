@@ -0,0 +1,148 @@
+package bong.gui;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import bong.task.Deadline;
+import bong.task.Event;
+import bong.task.Task;
+import bong.task.TaskEvent;
+import bong.task.TaskListListener;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+
+/**
+ * Observable view of a TaskList for the task table.
+ * It mirrors the TaskList by applying each change event as a small diff on the FX thread,
+ * rather than rebuilding the list after every command. Filtering and sorting are done
+ * by wrapping the mirrored list, so the table never has to re-render text.
+ */
+public class TaskTableModel implements TaskListListener {
+    private final ObservableList<Task> tasks = FXCollections.observableArrayList();
+    private final FilteredList<Task> filteredTasks = new FilteredList<>(tasks);
+    private final SortedList<Task> sortedTasks = new SortedList<>(filteredTasks);
+    private Predicate<Task> statusFilter;
+    private Set<Task> searchMatches;
+
+    /**
+     * Replaces the mirrored tasks with a snapshot of the TaskList. Runs on the FX thread.
+     *
+     * @param snapshot Copy of the tasks taken before this model started receiving events.
+     */
+    public void reset(List<Task> snapshot) {
+        tasks.setAll(snapshot);
+    }
+
+    /**
+     * Receives a change from the TaskList, which may happen on any thread,
+     * and applies it to the mirrored list on the FX thread.
+     *
+     * @param event The change that was applied to the TaskList.
+     */
+    @Override
+    public void onTaskChanged(TaskEvent event) {
+        Platform.runLater(() -> apply(event));
+    }
+
+    private void apply(TaskEvent event) {
+        switch (event.getType()) {
+        case ADDED:
+            tasks.add(event.getIndex(), event.getTask());
+            break;
+        case REMOVED:
+            tasks.remove(event.getIndex());
+            break;
+        default:
+            // The task was changed in place, so replacing it just tells the table to redraw its row
+            tasks.set(event.getIndex(), event.getTask());
+            break;
+        }
+    }
+
+    /**
+     * Restricts the visible tasks to those matching the given predicate.
+     *
+     * @param filter The predicate, or null to show every task.
+     */
+    public void setFilter(Predicate<Task> filter) {
+        statusFilter = filter;
+        updatePredicate();
+    }
+
+    /**
+     * Restricts the visible tasks to the results of a search.
+     *
+     * @param matches The matching tasks, or null to show every task.
+     */
+    public void setSearchMatches(Set<Task> matches) {
+        searchMatches = matches;
+        updatePredicate();
+    }
+
+    private void updatePredicate() {
+        Predicate<Task> status = statusFilter;
+        Set<Task> matches = searchMatches;
+        if (status == null && matches == null) {
+            filteredTasks.setPredicate(null);
+            return;
+        }
+        filteredTasks.setPredicate(task -> (status == null || status.test(task))
+                && (matches == null || matches.contains(task)));
+    }
+
+    /**
+     * Returns the filtered tasks, sorted by whatever comparator is bound to the list.
+     *
+     * @return The list to show in the table.
+     */
+    public SortedList<Task> getSortedTasks() {
+        return sortedTasks;
+    }
+
+    /**
+     * Returns the one-letter type code of a task, as used in the storage file.
+     *
+     * @param task The task.
+     * @return "T", "D" or "E".
+     */
+    public static String typeOf(Task task) {
+        if (task instanceof Deadline) {
+            return "D";
+        }
+        if (task instanceof Event) {
+            return "E";
+        }
+        return "T";
+    }
+
+    /**
+     * Returns the deadline or start time of a task.
+     *
+     * @param task The task.
+     * @return The date, or null for tasks without one.
+     */
+    public static LocalDateTime startOf(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getDeadline();
+        }
+        if (task instanceof Event) {
+            return ((Event) task).getStart();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the end time of a task.
+     *
+     * @param task The task.
+     * @return The end time for events, or null for other tasks.
+     */
+    public static LocalDateTime endOf(Task task) {
+        return task instanceof Event ? ((Event) task).getEnd() : null;
+    }
+}
@@ -0,0 +1,176 @@
+package bong.gui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the full chat transcript of a session in a local file, so that the window
+ * only has to hold the most recent messages and older ones can be paged back in.
+ * Messages are written by a background thread, so adding one never waits on the disk; the FX thread
+ * only keeps track of where each message will be, and waits for the writes only to read back messages
+ * that have not been written yet.
+ * File format (single-line per message, newlines and backslashes escaped):
+ *  U|text
+ *  B|text
+ *  E|text
+ */
+public class TranscriptArchive {
+    private final Path filePath;
+    // Byte offset of the start of each message record, so any range can be read with one seek
+    private final List<Long> offsets = new ArrayList<>();
+    // Size of the file once every message appended so far has been written
+    private long fileSize;
+    // Bytes actually written so far, and the first write that failed, if any; set by the writer thread
+    private volatile long writtenSize;
+    private volatile IOException writeFailure;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bong-transcript");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructs a TranscriptArchive, discarding any transcript left by an earlier session.
+     *
+     * @param filePath Path of the transcript file.
+     * @throws IOException If the file cannot be created.
+     */
+    public TranscriptArchive(String filePath) throws IOException {
+        this.filePath = Path.of(filePath);
+        Path parent = this.filePath.getParent();
+        if (parent != null && Files.notExists(parent)) {
+            Files.createDirectories(parent);
+        }
+        Files.write(this.filePath, new byte[0]);
+    }
+
+    /**
+     * Appends a message to the end of the transcript. The message is written in the background.
+     *
+     * @param message The message to archive.
+     * @throws IOException If writing an earlier message failed.
+     */
+    public void append(ChatMessage message) throws IOException {
+        throwIfWriteFailed();
+        byte[] record = (encode(message) + "\n").getBytes(StandardCharsets.UTF_8);
+        offsets.add(fileSize);
+        fileSize += record.length;
+        writer.execute(() -> {
+            if (writeFailure != null) {
+                return;
+            }
+            try {
+                Files.write(filePath, record, StandardOpenOption.APPEND);
+                writtenSize += record.length;
+            } catch (IOException e) {
+                writeFailure = e;
+            }
+        });
+    }
+
+    private void throwIfWriteFailed() throws IOException {
+        IOException failure = writeFailure;
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Waits until every message appended so far has been written.
+     */
+    private void awaitWrites() throws IOException {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for the transcript to be written", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        throwIfWriteFailed();
+    }
+
+    /**
+     * Returns the number of archived messages.
+     *
+     * @return The message count.
+     */
+    public int size() {
+        return offsets.size();
+    }
+
+    /**
+     * Reads the archived messages in the given range.
+     *
+     * @param from Index of the first message to read (inclusive).
+     * @param to Index of the last message to read (exclusive).
+     * @return The messages in transcript order.
+     * @throws IOException If reading fails.
+     */
+    public List<ChatMessage> read(int from, int to) throws IOException {
+        assert 0 <= from && from <= to && to <= size() : "range must lie within the archive";
+        List<ChatMessage> messages = new ArrayList<>(to - from);
+        if (from == to) {
+            return messages;
+        }
+        long start = offsets.get(from);
+        long end = to < size() ? offsets.get(to) : fileSize;
+        if (end > writtenSize) {
+            awaitWrites();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                // keep reading until the whole range is in the buffer
+            }
+        }
+        String chunk = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        for (String line : chunk.split("\n")) {
+            if (!line.isEmpty()) {
+                messages.add(decode(line));
+            }
+        }
+        return messages;
+    }
+
+    private static String encode(ChatMessage message) {
+        String text = message.getText().replace("\\", "\\\\").replace("\n", "\\n");
+        return message.getSpeaker().name().charAt(0) + "|" + text;
+    }
+
+    private static ChatMessage decode(String line) {
+        ChatMessage.Speaker speaker;
+        switch (line.charAt(0)) {
+        case 'U':
+            speaker = ChatMessage.Speaker.USER;
+            break;
+        case 'E':
+            speaker = ChatMessage.Speaker.ERROR;
+            break;
+        default:
+            speaker = ChatMessage.Speaker.BONG;
+            break;
+        }
+        StringBuilder text = new StringBuilder(line.length());
+        for (int i = 2; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                text.append(next == 'n' ? '\n' : next);
+            } else {
+                text.append(c);
+            }
+        }
+        return new ChatMessage(speaker, text.toString());
+    }
+}
@@ -0,0 +1,27 @@
+package bong.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for executing a parsed Command, including any saving it does.
+ * Disabled unless turned on in the recording settings.
+ */
+@Name("bong.CommandExecute")
+@Label("Command Execute")
+@Category({"Bong", "Commands"})
+@Description("Execution of a user command")
+@Enabled(false)
+@StackTrace(false)
+public class CommandExecuteEvent extends Event {
+    @Label("Command Type")
+    public String commandType;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
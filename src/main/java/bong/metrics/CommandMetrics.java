@@ -0,0 +1,167 @@
+package bong.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import bong.BongCore.CommandType;
+
+/**
+ * Collects latency statistics for every command handled by BongCore.
+ * For each command type it keeps histograms of the whole command and of its parse,
+ * execute and persistence phases. There is one instance per process, which is also
+ * published over JMX as "bong:type=CommandMetrics".
+ */
+public class CommandMetrics implements CommandMetricsMBean {
+    private static final String OBJECT_NAME = "bong:type=CommandMetrics";
+    private static final CommandMetrics INSTANCE = new CommandMetrics();
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * Represents the phases of handling a command that are timed separately.
+     */
+    public enum Phase {
+        TOTAL, PARSE, EXECUTE, PERSIST
+    }
+
+    private final Map<CommandType, LatencyHistogram[]> histograms = new EnumMap<>(CommandType.class);
+    // Time spent saving during the command currently running on each thread
+    private final ThreadLocal<long[]> persistNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    private CommandMetrics() {
+        for (CommandType type : CommandType.values()) {
+            LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LatencyHistogram();
+            }
+            histograms.put(type, phases);
+        }
+    }
+
+    public static CommandMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Publishes the metrics over JMX. Does nothing if they are already published, or cannot be;
+     * JMX is optional, and the stats command shows the same figures.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Another BongCore in this process has already published them
+        } catch (JMException e) {
+            // Left unpublished; nothing else depends on them being published
+        }
+    }
+
+    /**
+     * Records how long a phase of a command took.
+     *
+     * @param type The command type.
+     * @param phase The phase.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void record(CommandType type, Phase phase, long nanos) {
+        histograms.get(type)[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Adds time spent writing to storage on the current thread.
+     * Storage calls this; the total is recorded against the running command when it finishes.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void addPersistTime(long nanos) {
+        persistNanos.get()[0] += nanos;
+    }
+
+    /**
+     * Returns and clears the storage time accumulated on the current thread.
+     *
+     * @return The accumulated duration in nanoseconds.
+     */
+    public long takePersistTime() {
+        long[] accumulated = persistNanos.get();
+        long nanos = accumulated[0];
+        accumulated[0] = 0;
+        return nanos;
+    }
+
+    public LatencyHistogram getHistogram(CommandType type, Phase phase) {
+        return histograms.get(type)[phase.ordinal()];
+    }
+
+    /**
+     * Formats the statistics of every command type that has been used.
+     *
+     * @return A multi-line report, with latencies in milliseconds.
+     */
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (CommandType type : CommandType.values()) {
+            LatencyHistogram total = getHistogram(type, Phase.TOTAL);
+            if (total.getCount() == 0) {
+                continue;
+            }
+            report.append(type.name().toLowerCase()).append(": ").append(total.getCount()).append(" commands\n");
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = getHistogram(type, phase);
+                if (histogram.getCount() > 0) {
+                    report.append("  ").append(phase.name().toLowerCase()).append(' ')
+                            .append(formatPercentiles(histogram)).append('\n');
+                }
+            }
+        }
+        if (report.length() == 0) {
+            return "No commands have been timed yet.";
+        }
+        return "Command latencies (ms):\n" + report;
+    }
+
+    private static String formatPercentiles(LatencyHistogram histogram) {
+        return String.format("p50 %.3f, p90 %.3f, p99 %.3f, max %.3f",
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getMaxNanos() / NANOS_PER_MILLI);
+    }
+
+    @Override
+    public long getCommandCount() {
+        long count = 0;
+        for (CommandType type : CommandType.values()) {
+            count += getHistogram(type, Phase.TOTAL).getCount();
+        }
+        return count;
+    }
+
+    @Override
+    public double getPercentileMillis(String commandType, String phase, double percentile) {
+        LatencyHistogram histogram = getHistogram(CommandType.valueOf(commandType.toUpperCase()),
+                Phase.valueOf(phase.toUpperCase()));
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long getCount(String commandType) {
+        return getHistogram(CommandType.valueOf(commandType.toUpperCase()), Phase.TOTAL).getCount();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram[] phases : histograms.values()) {
+            for (LatencyHistogram histogram : phases) {
+                histogram.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package bong.metrics;
+
+/**
+ * JMX management interface for the command latency statistics.
+ */
+public interface CommandMetricsMBean {
+
+    /**
+     * Returns a human-readable report of every command type that has been used.
+     *
+     * @return The report, with latencies in milliseconds.
+     */
+    String getReport();
+
+    /**
+     * Returns the number of commands timed so far.
+     *
+     * @return The number of commands.
+     */
+    long getCommandCount();
+
+    /**
+     * Returns the number of commands of one type timed so far.
+     *
+     * @param commandType The command type, e.g. "todo".
+     * @return The number of commands.
+     */
+    long getCount(String commandType);
+
+    /**
+     * Returns a latency percentile for one phase of one command type.
+     *
+     * @param commandType The command type, e.g. "todo".
+     * @param phase One of "total", "parse", "execute" or "persist".
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency in milliseconds.
+     */
+    double getPercentileMillis(String commandType, String phase, double percentile);
+
+    /**
+     * Clears all statistics.
+     */
+    void reset();
+}
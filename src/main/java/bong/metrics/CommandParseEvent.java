@@ -0,0 +1,27 @@
+package bong.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for parsing one line of user input into a Command.
+ * Disabled unless turned on in the recording settings.
+ */
+@Name("bong.CommandParse")
+@Label("Command Parse")
+@Category({"Bong", "Commands"})
+@Description("Parsing of a user command")
+@Enabled(false)
+@StackTrace(false)
+public class CommandParseEvent extends Event {
+    @Label("Command Type")
+    public String commandType;
+
+    @Label("Input Length")
+    public int inputLength;
+}
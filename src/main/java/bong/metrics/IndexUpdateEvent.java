@@ -0,0 +1,24 @@
+package bong.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for applying one task change to a search index.
+ * Disabled unless turned on in the recording settings.
+ */
+@Name("bong.IndexUpdate")
+@Label("Index Update")
+@Category({"Bong", "Index"})
+@Description("Maintenance of a task index after a change to the task list")
+@Enabled(false)
+@StackTrace(false)
+public class IndexUpdateEvent extends Event {
+    @Label("Change")
+    public String change;
+}
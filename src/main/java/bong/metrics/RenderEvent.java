@@ -0,0 +1,27 @@
+package bong.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for rendering one chat message in the GUI.
+ * Disabled unless turned on in the recording settings.
+ */
+@Name("bong.Render")
+@Label("Message Render")
+@Category({"Bong", "GUI"})
+@Description("Building the nodes for one chat message")
+@Enabled(false)
+@StackTrace(false)
+public class RenderEvent extends Event {
+    @Label("Speaker")
+    public String speaker;
+
+    @Label("Characters")
+    public int characters;
+}
@@ -0,0 +1,35 @@
+package bong.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for loading or saving the task file.
+ * Disabled unless turned on in the recording settings.
+ */
+@Name("bong.Storage")
+@Label("Storage I/O")
+@Category({"Bong", "Storage"})
+@Description("Loading or saving of the task file")
+@Enabled(false)
+@StackTrace(false)
+public class StorageEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Tasks")
+    public int tasks;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -2,6 +2,7 @@ package bong.parser;
 
 import bong.BongCore.CommandType;
 
+import bong.command.ArchiveCommand;
 import bong.command.Command;
 import bong.command.DeleteCommand;
 import bong.command.DeadlineCommand;
@@ -9,9 +10,12 @@ import bong.command.EventCommand;
 import bong.command.ExitCommand;
 import bong.command.FindCommand;
 import bong.command.HelpCommand;
+import bong.command.HistoryCommand;
 import bong.command.ListCommand;
 import bong.command.MarkCommand;
 import bong.command.SnoozeCommand;
+import bong.command.StatsCommand;
+import bong.command.SyncCommand;
 import bong.command.TodoCommand;
 import bong.command.UnmarkCommand;
 import bong.exception.BongException;
@@ -24,60 +28,129 @@ import bong.exception.BongException;
 public class Parser {
     private static final String DEADLINE_DELIM = " /by ";
     private static final String EVENT_DELIM_REGEX = " /from | /to ";
+    private static final String ARCHIVED_FLAG = "/archived";
+    private static final String ALL_FLAG = "/all";
+    // Marks a task given by id rather than by position, as in 'mark #12'
+    private static final char ID_MARKER = '#';
+    private static final CommandType[] COMMAND_TYPES = CommandType.values();
 
     /**
     * Parses the full user command string and returns a corresponding Command object.
+    * The command word and task numbers are read in place, so parsing 'mark', 'unmark'
+    * and 'delete' allocates nothing beyond the returned Command.
     * 
     * @param fullCommand The complete user input string.
     * @return A Command object ready for execution.
     * @throws BongException If the command is not recognised or its format is invalid/incomplete.
     */
     public static Command parse(String fullCommand) throws BongException {
-        String[] inputParts = fullCommand.trim().split(" ", 2);
-        String commandWord = inputParts[0].toUpperCase();
-        String arguments = inputParts.length > 1 ? inputParts[1].trim() : "";
+        int start = skipWhitespace(fullCommand, 0, fullCommand.length());
+        int end = trimmedEnd(fullCommand, start);
+        int wordEnd = commandWordEnd(fullCommand, start, end);
+        int argumentsStart = skipWhitespace(fullCommand, wordEnd, end);
 
-        assert commandWord != null : "commandWord should not be null after split";
-
-        CommandType commandEnum;
-
-        try {
-            commandEnum = CommandType.valueOf(commandWord);
-        } catch (IllegalArgumentException e) {
+        CommandType commandEnum = matchCommandType(fullCommand, start, wordEnd);
+        if (commandEnum == CommandType.UNKNOWN) {
             throw new BongException("Hmm, I don't understand that command.\n"
                 + "Please try 'todo', 'deadline', 'event', 'list', 'mark', 'unmark', 'delete', 'find', or 'bye'.");
         }
 
         return switch (commandEnum) {
-            case LIST -> new ListCommand();
+            case LIST -> parseListCommand(fullCommand.substring(argumentsStart, end));
             case BYE -> new ExitCommand();
-            case MARK, UNMARK, DELETE -> parseNumberedCommand(commandEnum, arguments, commandWord);
-            case TODO -> parseTodoCommand(arguments);
-            case DEADLINE -> parseDeadlineCommand(arguments);
-            case EVENT -> parseEventCommand(arguments);
-            case FIND -> parseFindCommand(arguments);
-            case SNOOZE -> parseSnoozeCommand(arguments);
-            case HELP -> new HelpCommand();
+            case MARK, UNMARK, DELETE -> parseNumberedCommand(commandEnum, fullCommand, argumentsStart, end);
+            case TODO -> parseTodoCommand(fullCommand.substring(argumentsStart, end));
+            case DEADLINE -> parseDeadlineCommand(fullCommand.substring(argumentsStart, end));
+            case EVENT -> parseEventCommand(fullCommand.substring(argumentsStart, end));
+            case FIND -> parseFindCommand(fullCommand.substring(argumentsStart, end));
+            case SNOOZE -> parseSnoozeCommand(fullCommand.substring(argumentsStart, end));
+            case ARCHIVE -> parseArchiveCommand(fullCommand.substring(argumentsStart, end));
+            case SYNC -> parseSyncCommand(fullCommand.substring(argumentsStart, end));
+            case HISTORY -> parseHistoryCommand(fullCommand.substring(argumentsStart, end));
+            case HELP -> HelpCommand.create();
+            case STATS -> new StatsCommand();
             default -> throw new BongException("An unexpected command type was encountered during parsing.");
         };
     }
 
+    /**
+     * Returns the type of command the input asks for, without parsing its arguments.
+     *
+     * @param fullCommand The complete user input string.
+     * @return The command type, or UNKNOWN if the command word is not recognised.
+     */
+    public static CommandType parseCommandType(String fullCommand) {
+        int start = skipWhitespace(fullCommand, 0, fullCommand.length());
+        int end = trimmedEnd(fullCommand, start);
+        return matchCommandType(fullCommand, start, commandWordEnd(fullCommand, start, end));
+    }
+
+    /**
+     * Finds the command type whose name equals the given region of the input, ignoring case.
+     */
+    private static CommandType matchCommandType(String input, int start, int end) {
+        int length = end - start;
+        for (CommandType type : COMMAND_TYPES) {
+            String name = type.name();
+            if (type != CommandType.UNKNOWN && name.length() == length
+                    && input.regionMatches(true, start, name, 0, length)) {
+                return type;
+            }
+        }
+        return CommandType.UNKNOWN;
+    }
+
+    // The helpers below treat whitespace the way String.trim does: any character up to ' '
+
+    private static int skipWhitespace(String input, int from, int limit) {
+        int i = from;
+        while (i < limit && input.charAt(i) <= ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int trimmedEnd(String input, int start) {
+        int end = input.length();
+        while (end > start && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static int commandWordEnd(String input, int start, int end) {
+        int space = input.indexOf(' ', start);
+        return space < 0 || space > end ? end : space;
+    }
+
     /**
      * Parses commands that require a task number (MARK, UNMARK, DELETE).
+     * The task may also be given by its id, as '#id'.
      *
      * @param command The type of command (MARK, UNMARK, DELETE).
-     * @param arguments The arguments string containing the task number.
-     * @param commandWord The original command word (e.g., "mark", "unmark", "delete").
+     * @param input The complete user input string.
+     * @param argumentsStart Index of the first character of the task number.
+     * @param end Index just past the last non-blank character of the input.
      * @return A Command object for marking, unmarking, or deleting a task.
      * @throws BongException If the task number is empty or not a valid integer.
      */
     private static Command parseNumberedCommand(
-            CommandType command, String arguments, String commandWord) throws BongException {
-        if (arguments.isEmpty()) {
-            throw new BongException("The task number cannot be empty for " + commandWord.toLowerCase() + " command.");
+            CommandType command, String input, int argumentsStart, int end) throws BongException {
+        if (argumentsStart >= end) {
+            throw new BongException("The task number cannot be empty for "
+                    + command.name().toLowerCase() + " command.");
+        }
+        if (input.charAt(argumentsStart) == ID_MARKER) {
+            long taskId = parseTaskId(input, argumentsStart + 1, end);
+            return switch (command) {
+                case MARK -> MarkCommand.forId(taskId);
+                case UNMARK -> UnmarkCommand.forId(taskId);
+                case DELETE -> DeleteCommand.forId(taskId);
+                default -> throw new BongException("Invalid command type for parseNumberedCommand.");
+            };
         }
         try {
-            int taskNumber = Integer.parseInt(arguments);
+            int taskNumber = Integer.parseInt(input, argumentsStart, end, 10);
             return switch (command) {
                 case MARK -> new MarkCommand(taskNumber);
                 case UNMARK -> new UnmarkCommand(taskNumber);
@@ -89,6 +162,27 @@ public class Parser {
         }
     }
 
+    /**
+     * Parses the digits of a task id, which follow the '#'.
+     *
+     * @param input The complete user input string.
+     * @param start Index of the first digit.
+     * @param end Index just past the last digit.
+     * @return The task id.
+     * @throws BongException If the id is not a positive number.
+     */
+    private static long parseTaskId(String input, int start, int end) throws BongException {
+        try {
+            long taskId = Long.parseLong(input, start, end, 10);
+            if (taskId > 0) {
+                return taskId;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new BongException("The task id provided is invalid. Task ids look like #12.");
+    }
+
     /**
      * Parses a 'todo' command.
      *
@@ -156,10 +250,82 @@ public class Parser {
      * @throws BongException If the keyword is empty.
      */
     private static Command parseFindCommand(String arguments) throws BongException {
-        if (arguments.isEmpty()) {
+        boolean isSearchingArchive = arguments.equals(ALL_FLAG) || arguments.startsWith(ALL_FLAG + " ");
+        String keyword = isSearchingArchive ? arguments.substring(ALL_FLAG.length()).trim() : arguments;
+        if (keyword.isEmpty()) {
             throw new BongException("The 'find' command needs a keyword to search for!");
         }
-        return new FindCommand(arguments);
+        return new FindCommand(keyword, isSearchingArchive);
+    }
+
+    /**
+     * Parses a 'list' command.
+     *
+     * @param arguments The arguments string, "/archived" to list the archived tasks.
+     * @return A Command object for listing tasks.
+     */
+    private static Command parseListCommand(String arguments) {
+        return new ListCommand(arguments.equals(ARCHIVED_FLAG));
+    }
+
+    /**
+     * Parses an 'archive' command.
+     *
+     * @param arguments The arguments string, empty or the minimum age in days of the tasks to archive.
+     * @return A Command object for archiving completed tasks.
+     * @throws BongException If the age is not a non-negative number.
+     */
+    private static Command parseArchiveCommand(String arguments) throws BongException {
+        if (arguments.isEmpty()) {
+            return new ArchiveCommand();
+        }
+        try {
+            int days = Integer.parseInt(arguments);
+            if (days >= 0) {
+                return new ArchiveCommand(days);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new BongException("Try 'archive' to archive every completed task,"
+                + " or 'archive <days>' to archive those dated more than that many days ago.");
+    }
+
+    /**
+     * Parses a 'sync' command.
+     *
+     * @param arguments The arguments string containing the path of the other task file.
+     * @return A Command object for syncing with the other file.
+     * @throws BongException If no file is given.
+     */
+    private static Command parseSyncCommand(String arguments) throws BongException {
+        if (arguments.isEmpty()) {
+            throw new BongException("Which task file should I sync with? Try 'sync <file>'.");
+        }
+        return new SyncCommand(arguments);
+    }
+
+    /**
+     * Parses a 'history' command.
+     *
+     * @param arguments The arguments string, empty or the number of changes after which to show the tasks.
+     * @return A Command object for showing the tasks as they were.
+     * @throws BongException If the number of changes is not a non-negative number.
+     */
+    private static Command parseHistoryCommand(String arguments) throws BongException {
+        if (arguments.isEmpty()) {
+            return new HistoryCommand();
+        }
+        try {
+            long changes = Long.parseLong(arguments);
+            if (changes >= 0) {
+                return new HistoryCommand(changes);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new BongException("Try 'history' to see how many changes the journal holds,"
+                + " or 'history <changes>' to see the task list after that many.");
     }
 
     /**
@@ -178,11 +344,16 @@ public class Parser {
         if (parts.length < 2) {
             throw new BongException("Try 'snooze <task number> /to <yyyy-MM-dd HHmm> (/end <yyyy-MM-dd HHmm>)'");
         }
-        int taskNumber;
-        try {
-            taskNumber = Integer.parseInt(parts[0]);
-        } catch (NumberFormatException e) {
-            throw new BongException("    The task number provided is invalid. Please enter a valid number.");
+        long taskId = 0;
+        int taskNumber = 0;
+        if (parts[0].charAt(0) == ID_MARKER) {
+            taskId = parseTaskId(parts[0], 1, parts[0].length());
+        } else {
+            try {
+                taskNumber = Integer.parseInt(parts[0]);
+            } catch (NumberFormatException e) {
+                throw new BongException("    The task number provided is invalid. Please enter a valid number.");
+            }
         }
 
         String rest = parts[1].trim();
@@ -202,6 +373,10 @@ public class Parser {
             throw new BongException("Snooze requires a non-empty new datetime after /to.");
         }
 
-        return new SnoozeCommand(taskNumber, newStartString, (endPart != null && !endPart.isEmpty()) ? endPart : null);
+        String newEndString = (endPart != null && !endPart.isEmpty()) ? endPart : null;
+        if (taskId != 0) {
+            return SnoozeCommand.createForId(taskId, newStartString, newEndString);
+        }
+        return SnoozeCommand.create(taskNumber, newStartString, newEndString);
     }
 }
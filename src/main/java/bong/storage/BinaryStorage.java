@@ -0,0 +1,55 @@
+package bong.storage;
+
+import java.io.IOException;
+import java.util.List;
+
+import bong.metrics.CommandMetrics;
+import bong.metrics.StorageEvent;
+import bong.task.Task;
+import bong.task.TaskEvent;
+
+/**
+ * Storage that saves the task file in the compact binary format of BinaryTaskFormat.
+ * Loading accepts either format, so an existing text file is converted on the first save,
+ * and switching back to plain Storage converts it back the same way.
+ */
+public class BinaryStorage extends Storage {
+    public BinaryStorage(String filePath) {
+        super(filePath);
+    }
+
+    /**
+     * Rewrites the whole file; binary records have no fixed position to update in place.
+     *
+     * @param tasks The full list of tasks after the change.
+     * @param event The change that was just applied.
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void saveTasks(List<Task> tasks, TaskEvent event) throws IOException {
+        assert event != null : "event must not be null";
+        saveTasks(tasks);
+    }
+
+    /**
+     * Saves all tasks in the binary format, replacing the file atomically.
+     *
+     * @param tasks The list of tasks to save.
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void saveTasks(List<Task> tasks) throws IOException {
+        assert tasks != null : "saveTasks requires a non-null list";
+        long start = System.nanoTime();
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        noteIds(tasks);
+        long nextId = getNextId();
+        try {
+            writeAtomically(out -> BinaryTaskFormat.write(tasks, nextId, out));
+        } finally {
+            CommandMetrics.getInstance().addPersistTime(System.nanoTime() - start);
+        }
+        commitStorageEvent(event, "save", tasks.size());
+    }
+}
@@ -0,0 +1,310 @@
+package bong.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+import java.util.zip.CRC32;
+
+import bong.task.Deadline;
+import bong.task.Event;
+import bong.task.Task;
+import bong.task.Todo;
+import bong.ui.Ui;
+
+/**
+ * Reads and writes the compact binary task file.
+ * Layout, all numbers big-endian:
+ *  header: "BONG" | version (1 byte) | record count (4 bytes) | next id (varint)
+ *  record: type ('T', 'D' or 'E', with the top bit set if done) | id (varint, 0 for none) | stamp (4 bytes)
+ *          | description length (varint) | UTF-8 description
+ *          | deadline, or start and end, as minutes since 1970-01-01T00:00 (zigzag varint each)
+ * Version 1 files, whose records have no id, version 2 files, whose dates are 4-byte minutes,
+ * version 3 files, whose header has no next id, and version 4 files, whose records have no stamp, still load.
+ *  trailer: CRC-32 of everything before it (4 bytes)
+ */
+final class BinaryTaskFormat {
+    private static final byte[] MAGIC = {'B', 'O', 'N', 'G'};
+    private static final int VERSION = 5;
+    // The last version whose records have no id, the last whose dates are 4-byte minutes,
+    // the last whose header has no next id, and the last whose records have no stamp
+    private static final int VERSION_WITHOUT_IDS = 1;
+    private static final int VERSION_WITH_INT_DATES = 2;
+    private static final int VERSION_WITHOUT_NEXT_ID = 3;
+    private static final int VERSION_WITHOUT_STAMPS = 4;
+
+    private static final int DONE_BIT = 0x80;
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + Integer.BYTES;
+    // Smallest possible record: a type byte and an empty description
+    private static final int MIN_RECORD_LENGTH = 2;
+    private static final int PROGRESS_INTERVAL = 4096;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private BinaryTaskFormat() {}
+
+    /**
+     * The tasks of a binary file together with the next id it records.
+     */
+    static class Contents {
+        final List<Task> tasks;
+        // 0 for a file written before the next id was recorded
+        final long nextId;
+
+        Contents(List<Task> tasks, long nextId) {
+            this.tasks = tasks;
+            this.nextId = nextId;
+        }
+    }
+
+    /**
+     * Returns whether the file starts with the binary format's magic bytes.
+     *
+     * @param file The task file.
+     * @return True if the file is in the binary format.
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isBinary(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    /**
+     * Decodes a binary task file. Damage is reported through the Ui; the tasks decoded
+     * before an undecodable record are still returned.
+     *
+     * @param file The task file.
+     * @param ui The Ui object for displaying warnings about corrupted data.
+     * @param progress Receives the fraction of records decoded so far.
+     * @return The tasks in the file, and the next id it records.
+     * @throws IOException If the file cannot be read, or is of a version this code does not know.
+     */
+    static Contents read(Path file, Ui ui, DoubleConsumer progress) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        if (content.length < HEADER_LENGTH + Integer.BYTES) {
+            throw new IOException("binary task file is too short: " + file);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(content, 0, content.length - Integer.BYTES);
+        buffer.position(MAGIC.length);
+        int version = buffer.get() & 0xFF;
+        if (version < VERSION_WITHOUT_IDS || version > VERSION) {
+            throw new IOException("unsupported binary task file version " + version + ": " + file);
+        }
+        int count = buffer.getInt();
+        long nextId = 0;
+        if (version > VERSION_WITHOUT_NEXT_ID) {
+            try {
+                nextId = readVarlong(buffer, "malformed next id");
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("binary task file header is damaged: " + file);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length - Integer.BYTES);
+        int storedCrc = ByteBuffer.wrap(content, content.length - Integer.BYTES, Integer.BYTES).getInt();
+        if ((int) crc.getValue() != storedCrc) {
+            ui.showStorageCorruptionWarning(file + " (checksum mismatch, the file is corrupted)");
+        }
+
+        // A damaged count must not make us allocate more than the file could hold
+        int capacity = Math.max(0, Math.min(count, buffer.remaining() / MIN_RECORD_LENGTH));
+        List<Task> tasks = new ArrayList<>(capacity);
+        for (int i = 0; i < count; i++) {
+            if (i % PROGRESS_INTERVAL == 0) {
+                progress.accept((double) i / count);
+            }
+            try {
+                tasks.add(readTask(buffer, version));
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                ui.showStorageCorruptionWarning("record " + (i + 1) + " of " + file + " (" + e.getMessage() + ")");
+                break;
+            }
+        }
+        return new Contents(tasks, Math.max(0, nextId));
+    }
+
+    private static Task readTask(ByteBuffer buffer, int version) {
+        int typeByte = buffer.get() & 0xFF;
+        boolean isDone = (typeByte & DONE_BIT) != 0;
+        long id = version > VERSION_WITHOUT_IDS ? readVarlong(buffer) : 0;
+        int stamp = version > VERSION_WITHOUT_STAMPS ? buffer.getInt() : 0;
+        int length = readVarint(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("description runs past the end of the file");
+        }
+        String description = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+
+        Task task;
+        switch (typeByte & ~DONE_BIT) {
+        case 'T':
+            task = new Todo(description);
+            break;
+        case 'D':
+            task = new Deadline(description, readDate(buffer, version));
+            break;
+        case 'E':
+            task = new Event(description, readDate(buffer, version), readDate(buffer, version));
+            break;
+        default:
+            throw new IllegalArgumentException("unknown task type " + (typeByte & ~DONE_BIT));
+        }
+        if (isDone) {
+            task.setMark();
+        }
+        if (id != 0) {
+            task.setId(id);
+            task.setStamp(stamp);
+        }
+        return task;
+    }
+
+    /**
+     * Encodes the tasks in the binary format.
+     *
+     * @param tasks The tasks to write.
+     * @param nextId The lowest id above every id ever saved.
+     * @param out Where to write them; not closed.
+     * @throws IOException If writing fails.
+     */
+    static void write(List<Task> tasks, long nextId, OutputStream out) throws IOException {
+        CRC32 crc = new CRC32();
+        DataOutputStream data = new DataOutputStream(
+                new BufferedOutputStream(new ChecksummedOutputStream(out, crc), WRITE_BUFFER_SIZE));
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(tasks.size());
+        writeVarint(data, nextId);
+        for (Task task : tasks) {
+            writeTask(data, task);
+        }
+        data.flush();
+        // The trailer itself is not part of the checksum, so it bypasses the checksummed stream
+        new DataOutputStream(out).writeInt((int) crc.getValue());
+    }
+
+    private static void writeTask(DataOutputStream data, Task task) throws IOException {
+        int type = task instanceof Deadline ? 'D' : task instanceof Event ? 'E' : 'T';
+        data.writeByte(task.isDone() ? type | DONE_BIT : type);
+        writeVarint(data, task.getId());
+        data.writeInt(task.getStamp());
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        writeVarint(data, description.length);
+        data.write(description);
+        if (task instanceof Deadline) {
+            writeDate(data, ((Deadline) task).getDeadline());
+        } else if (task instanceof Event) {
+            writeDate(data, ((Event) task).getStart());
+            writeDate(data, ((Event) task).getEnd());
+        }
+    }
+
+    private static void writeVarint(DataOutputStream data, long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            data.writeByte((int) (remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        data.writeByte((int) remaining);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed description length");
+    }
+
+    private static long readVarlong(ByteBuffer buffer) {
+        long value = readVarlong(buffer, "malformed task id");
+        if (value < 0) {
+            throw new IllegalArgumentException("malformed task id");
+        }
+        return value;
+    }
+
+    private static long readVarlong(ByteBuffer buffer, String damage) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(damage);
+    }
+
+    // Task times have no seconds, so whole minutes since the epoch store them exactly. Zigzag encoding
+    // keeps dates before 1970 short too, and today's dates take 4 bytes, as the int minutes of version 2 did,
+    // which only reached the year 6053
+
+    private static void writeDate(DataOutputStream data, LocalDateTime dateTime) throws IOException {
+        long minutes = Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+        writeVarint(data, (minutes << 1) ^ (minutes >> 63));
+    }
+
+    private static LocalDateTime readDate(ByteBuffer buffer, int version) {
+        long minutes;
+        if (version <= VERSION_WITH_INT_DATES) {
+            minutes = buffer.getInt();
+        } else {
+            long zigzag = readVarlong(buffer, "malformed date");
+            minutes = (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        try {
+            return LocalDateTime.ofEpochSecond(Math.multiplyExact(minutes, 60), 0, ZoneOffset.UTC);
+        } catch (ArithmeticException | DateTimeException e) {
+            throw new IllegalArgumentException("date out of range");
+        }
+    }
+
+    /**
+     * Passes bytes through while adding them to a checksum.
+     */
+    private static class ChecksummedOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final CRC32 crc;
+
+        ChecksummedOutputStream(OutputStream out, CRC32 crc) {
+            this.out = out;
+            this.crc = crc;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            crc.update(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
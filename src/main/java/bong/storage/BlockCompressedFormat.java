@@ -0,0 +1,289 @@
+package bong.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import bong.task.Task;
+import bong.ui.Ui;
+
+/**
+ * Reads and writes the text task file as a series of independently compressed blocks.
+ * Each block is a complete gzip member holding whole lines, so the file as a whole is
+ * ordinary multi-member gzip (zcat prints the text file). The header of every member
+ * carries an extra field, "BL", with the length of its compressed data; this lets a
+ * reader find all blocks without inflating them, and then inflate and parse them in parallel.
+ * New blocks can be appended to an existing file without touching the blocks already in it.
+ */
+final class BlockCompressedFormat {
+    // Uncompressed bytes gathered before a block is compressed
+    private static final int BLOCK_SIZE = 64 * 1024;
+    // Largest block a reader accepts; only a single very long line makes a block exceed BLOCK_SIZE
+    private static final int MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int DEFLATE = 8;
+    private static final int FLAG_EXTRA = 4;
+    private static final int UNKNOWN_OS = 255;
+    private static final int EXTRA_LENGTH = 8;
+    private static final int HEADER_LENGTH = 12 + EXTRA_LENGTH;
+    private static final int TRAILER_LENGTH = 8;
+
+    private BlockCompressedFormat() {}
+
+    /**
+     * Parses one stored line into a task, or returns null for a header line that holds none.
+     */
+    @FunctionalInterface
+    interface LineParser {
+        Task parse(String line) throws Exception;
+    }
+
+    /**
+     * Returns whether the file starts like a gzip file.
+     *
+     * @param file The task file.
+     * @return True if the file is compressed.
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isCompressed(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.read() == GZIP_MAGIC_1 && in.read() == GZIP_MAGIC_2;
+        }
+    }
+
+    /**
+     * Loads the tasks of a block-compressed file, inflating and parsing blocks in parallel.
+     * Lines that fail to parse, and blocks that fail to inflate, are reported through the Ui
+     * in file order and skipped.
+     *
+     * @param file The task file.
+     * @param parser Turns each line into a task.
+     * @param ui The Ui object for displaying warnings about corrupted data.
+     * @param progress Receives the fraction of blocks decoded so far, from the decoding threads.
+     * @return The tasks in file order.
+     * @throws IOException If the file cannot be read.
+     */
+    static List<Task> read(Path file, LineParser parser, Ui ui, DoubleConsumer progress) throws IOException {
+        // Read rather than mapped: a mapped file cannot be replaced on some platforms until it is unmapped
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        List<ByteBuffer> blocks = findBlocks(content, file, ui);
+
+        AtomicInteger decoded = new AtomicInteger();
+        List<DecodedBlock> results = blocks.parallelStream()
+                .map(block -> {
+                    DecodedBlock result = decode(block, parser);
+                    progress.accept((double) decoded.incrementAndGet() / blocks.size());
+                    return result;
+                })
+                .collect(Collectors.toList());
+
+        List<Task> tasks = new ArrayList<>();
+        for (DecodedBlock result : results) {
+            tasks.addAll(result.tasks);
+            for (String warning : result.warnings) {
+                ui.showStorageCorruptionWarning(warning);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Walks the member headers and returns a view of each complete member.
+     * Anything after the last complete member, such as the torn end of an interrupted
+     * append, is reported and left out.
+     */
+    private static List<ByteBuffer> findBlocks(ByteBuffer file, Path path, Ui ui) {
+        List<ByteBuffer> blocks = new ArrayList<>();
+        int position = 0;
+        while (position < file.limit()) {
+            int memberLength = file.limit() - position < HEADER_LENGTH ? -1 : memberLength(file, position);
+            if (memberLength < 0 || memberLength > file.limit() - position) {
+                ui.showStorageCorruptionWarning(path + " (damaged after byte " + position + ", the rest is skipped)");
+                break;
+            }
+            blocks.add(file.slice(position, memberLength).order(ByteOrder.LITTLE_ENDIAN));
+            position += memberLength;
+        }
+        return blocks;
+    }
+
+    /**
+     * Returns the length of the file up to the end of its last complete member.
+     *
+     * @param channel The open file.
+     * @return The number of intact bytes at the start of the file.
+     * @throws IOException If reading fails.
+     */
+    static long intactLength(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        long position = 0;
+        while (position < channel.size()) {
+            header.clear();
+            while (header.hasRemaining() && channel.read(header, position + header.position()) > 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            int memberLength = header.hasRemaining() ? -1 : memberLength(header, 0);
+            if (memberLength < 0 || memberLength > channel.size() - position) {
+                break;
+            }
+            position += memberLength;
+        }
+        return position;
+    }
+
+    /**
+     * Reads the member header at the given position and returns the length of the whole member,
+     * or -1 if there is no header of ours there.
+     */
+    private static int memberLength(ByteBuffer buffer, int position) {
+        if ((buffer.get(position) & 0xFF) != GZIP_MAGIC_1 || (buffer.get(position + 1) & 0xFF) != GZIP_MAGIC_2
+                || buffer.get(position + 12) != 'B' || buffer.get(position + 13) != 'L') {
+            return -1;
+        }
+        int dataLength = buffer.getInt(position + 16);
+        return dataLength < 0 || dataLength > Integer.MAX_VALUE - HEADER_LENGTH - TRAILER_LENGTH
+                ? -1 : HEADER_LENGTH + dataLength + TRAILER_LENGTH;
+    }
+
+    private static DecodedBlock decode(ByteBuffer member, LineParser parser) {
+        DecodedBlock result = new DecodedBlock();
+        int dataLength = member.limit() - HEADER_LENGTH - TRAILER_LENGTH;
+        int expectedCrc = member.getInt(HEADER_LENGTH + dataLength);
+        int size = member.getInt(HEADER_LENGTH + dataLength + 4);
+
+        if (size < 0 || size > MAX_BLOCK_SIZE) {
+            result.warnings.add("compressed block (recorded size " + size + " is impossible)");
+            return result;
+        }
+        byte[] text = new byte[size];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(member.slice(HEADER_LENGTH, dataLength));
+            if (inflater.inflate(text) != size) {
+                throw new DataFormatException("block is shorter than its recorded size");
+            }
+        } catch (DataFormatException e) {
+            result.warnings.add("compressed block (" + e.getMessage() + ")");
+            return result;
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(text);
+        if ((int) crc.getValue() != expectedCrc) {
+            result.warnings.add("compressed block (checksum mismatch, the block is corrupted)");
+            return result;
+        }
+
+        for (String line : new String(text, StandardCharsets.UTF_8).split("\r?\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                Task task = parser.parse(line);
+                if (task != null) {
+                    result.tasks.add(task);
+                }
+            } catch (Exception e) {
+                result.warnings.add(line + " (" + e.getMessage() + ")");
+            }
+        }
+        return result;
+    }
+
+    private static class DecodedBlock {
+        private final List<Task> tasks = new ArrayList<>();
+        private final List<String> warnings = new ArrayList<>();
+    }
+
+    /**
+     * Compresses lines into blocks as they are written, so the whole file is never held in memory.
+     * Closing the writer flushes the last block but leaves the underlying stream open.
+     */
+    static class BlockWriter implements Closeable {
+        private final OutputStream out;
+        // The fastest level already shrinks the repetitive task text severalfold; higher levels cost 3x the time
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        private final CRC32 crc = new CRC32();
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE + 1024);
+        private byte[] compressed = new byte[BLOCK_SIZE];
+
+        BlockWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Adds a line; lines are never split across blocks.
+         *
+         * @param line The line, without a line separator.
+         * @throws IOException If writing a finished block fails.
+         */
+        void writeLine(String line) throws IOException {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            if (block.size() > 0 && block.size() + bytes.length + 1 > BLOCK_SIZE) {
+                flushBlock();
+            }
+            block.write(bytes);
+            block.write('\n');
+        }
+
+        private void flushBlock() throws IOException {
+            byte[] text = block.toByteArray();
+            crc.reset();
+            crc.update(text);
+            deflater.reset();
+            deflater.setInput(text);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            header.put((byte) GZIP_MAGIC_1).put((byte) GZIP_MAGIC_2).put((byte) DEFLATE).put((byte) FLAG_EXTRA);
+            header.putInt(0).put((byte) 0).put((byte) UNKNOWN_OS);
+            header.putShort((short) EXTRA_LENGTH).put((byte) 'B').put((byte) 'L').putShort((short) 4).putInt(length);
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) crc.getValue()).putInt(text.length);
+
+            out.write(header.array());
+            out.write(compressed, 0, length);
+            out.write(trailer.array());
+            block.reset();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (block.size() > 0) {
+                    flushBlock();
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package bong.storage;
+
+import java.io.IOException;
+import java.util.List;
+
+import bong.metrics.CommandMetrics;
+import bong.metrics.StorageEvent;
+import bong.task.Task;
+import bong.task.TaskEvent;
+
+/**
+ * Storage that saves the text task file compressed in independent blocks (see BlockCompressedFormat).
+ * Lines are compressed as they are written, and loading inflates and parses the blocks in parallel.
+ * Plain text and binary files are read as well, so an existing file is converted on the first save.
+ */
+public class CompressedStorage extends Storage {
+    public CompressedStorage(String filePath) {
+        super(filePath);
+    }
+
+    /**
+     * Rewrites the whole file; records inside compressed blocks cannot be updated in place.
+     *
+     * @param tasks The full list of tasks after the change.
+     * @param event The change that was just applied.
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void saveTasks(List<Task> tasks, TaskEvent event) throws IOException {
+        assert event != null : "event must not be null";
+        saveTasks(tasks);
+    }
+
+    /**
+     * Saves all tasks block-compressed, replacing the file atomically.
+     *
+     * @param tasks The list of tasks to save.
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void saveTasks(List<Task> tasks) throws IOException {
+        assert tasks != null : "saveTasks requires a non-null list";
+        long start = System.nanoTime();
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        noteIds(tasks);
+        String nextIdHeader = nextIdHeader(getNextId());
+        try {
+            writeAtomically(out -> {
+                try (BlockCompressedFormat.BlockWriter writer = new BlockCompressedFormat.BlockWriter(out)) {
+                    writer.writeLine(nextIdHeader);
+                    for (Task task : tasks) {
+                        writer.writeLine(serialiseRecord(task));
+                    }
+                }
+            });
+        } finally {
+            CommandMetrics.getInstance().addPersistTime(System.nanoTime() - start);
+        }
+        commitStorageEvent(event, "save", tasks.size());
+    }
+}
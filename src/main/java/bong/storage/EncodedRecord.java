@@ -0,0 +1,43 @@
+package bong.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import bong.task.EncodedTaskFields;
+import bong.util.DateTimeUtil;
+
+/**
+ * A record of the loaded task file, kept as the range of bytes it occupies until its task needs its fields.
+ * The fields are split and decoded in the same way as Storage.parseLineToTask does.
+ * Only records whose checksum matched are kept like this, so decoding them cannot fail.
+ */
+final class EncodedRecord implements EncodedTaskFields {
+    private final byte[] content;
+    private final int start;
+    private final int length;
+    // Fields of the record, split on first use; a task decodes its fields only once
+    private String[] parts;
+
+    EncodedRecord(byte[] content, int start, int length) {
+        this.content = content;
+        this.start = start;
+        this.length = length;
+    }
+
+    @Override
+    public String decodeDescription() {
+        return parts()[2].trim();
+    }
+
+    @Override
+    public LocalDateTime decodeDate(int position) {
+        return LocalDateTime.parse(parts()[3 + position].trim(), DateTimeUtil.STORAGE);
+    }
+
+    private String[] parts() {
+        if (parts == null) {
+            parts = new String(content, start, length, StandardCharsets.UTF_8).split("\\s*\\|\\s*", -1);
+        }
+        return parts;
+    }
+}
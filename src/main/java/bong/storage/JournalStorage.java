@@ -0,0 +1,367 @@
+package bong.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+
+import bong.exception.BongException;
+import bong.metrics.CommandMetrics;
+import bong.task.Task;
+import bong.task.TaskEvent;
+import bong.ui.Ui;
+
+/**
+ * Event-sourced storage. Every change is appended to a journal as a typed, versioned
+ * event instead of rewriting the whole task file. Every few events the full list is
+ * written out as a snapshot (the normal task file), and on startup only the events
+ * recorded after the latest snapshot are replayed.
+ * Journal format (single-line per event):
+ *  v1 | ADDED | index | task line
+ *  v1 | REMOVED | index
+ *  v1 | MARKED | index
+ *  v1 | UNMARKED | index
+ *  v1 | RESCHEDULED | index | task line
+ * The snapshot starts with a header, "# journal events offset", giving the number of events it
+ * includes and where in the journal the events after it start, followed by the next id as in every
+ * text file. The header is written in the same
+ * atomic replace as the tasks, so the snapshot and its position in the journal always match.
+ * The journal is never truncated, except for a last event cut short while being appended, so together
+ * with the base copy taken when it was started, the list can be rebuilt as it was after any event.
+ */
+public class JournalStorage extends Storage {
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = " | ";
+    private static final int DEFAULT_SNAPSHOT_INTERVAL = 50;
+    private static final String HEADER_PREFIX = HEADER_MARKER + " journal ";
+
+    private final Path journalPath;
+    // Where snapshots written before the header was added kept their position in the journal
+    private final Path markerPath;
+    private final Path basePath;
+    private final int snapshotInterval;
+
+    private long eventCount;
+    private int eventsSinceSnapshot;
+    // Journal offset the snapshot being written starts replaying from
+    private long snapshotOffset;
+
+    /**
+     * How far a replay of the journal got.
+     */
+    private static final class Replay {
+        private int applied;
+        // Offset just past the last event applied
+        private long end;
+        // Whether a damaged event stopped the replay, or a torn one at the end of the journal
+        private boolean isStoppedByDamage;
+        private boolean isTorn;
+    }
+
+    public JournalStorage(String filePath) {
+        this(filePath, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Constructs a JournalStorage.
+     *
+     * @param filePath Path of the snapshot file; the journal lives next to it.
+     * @param snapshotInterval Number of events to record between snapshots.
+     */
+    public JournalStorage(String filePath, int snapshotInterval) {
+        super(filePath);
+        assert snapshotInterval > 0 : "snapshot interval must be positive";
+        this.journalPath = Path.of(filePath + ".journal");
+        this.markerPath = Path.of(filePath + ".snapshot");
+        this.basePath = Path.of(filePath + ".base");
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Loads the latest snapshot and replays the events recorded after it.
+     * Replaying stops at the first damaged event, since the events after it were recorded against a list
+     * that event had changed; a snapshot is then taken so that new events are not recorded behind it.
+     * A last event cut short while being appended is cut off the journal.
+     *
+     * @param ui The Ui object for displaying warnings about corrupted data.
+     * @param progress Receives the fraction of the snapshot loaded so far.
+     * @return A List<Task> containing the reconstructed tasks.
+     * @throws IOException If an I/O error occurs while accessing the storage files.
+     */
+    @Override
+    public List<Task> loadTasks(Ui ui, DoubleConsumer progress) throws IOException {
+        List<Task> tasks = super.loadTasks(ui, progress);
+        if (Files.notExists(journalPath)) {
+            startJournal(tasks);
+            return tasks;
+        }
+        if (!isNextIdRecorded()) {
+            // A snapshot from before the next id was recorded: tasks removed since the journal was started
+            // may hold the highest ids, so the whole journal is replayed just to find them
+            loadTasksAt(SILENT_UI, Long.MAX_VALUE);
+        }
+
+        long[] position = readPosition(ui);
+        if (position == null) {
+            // Without a position the snapshot is taken as it is, and becomes the new starting point
+            eventCount = countEvents();
+            saveTasks(tasks);
+            return tasks;
+        }
+        Replay replay = replay(tasks, ui, position[1], Long.MAX_VALUE);
+        eventCount = position[0] + replay.applied;
+        eventsSinceSnapshot = replay.applied;
+        if (replay.isTorn) {
+            try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                channel.truncate(replay.end);
+            }
+        } else if (replay.isStoppedByDamage) {
+            saveTasks(tasks);
+        }
+        return tasks;
+    }
+
+    /**
+     * Rebuilds the task list as it was right after the given number of journal events.
+     *
+     * @param ui The Ui object for displaying warnings about corrupted data.
+     * @param events The number of events to replay from the start of the journal.
+     * @return A List<Task> containing the tasks at that point in time.
+     * @throws IOException If an I/O error occurs while accessing the storage files.
+     */
+    public List<Task> loadTasksAt(Ui ui, long events) throws IOException {
+        assert events >= 0 : "event count must not be negative";
+        List<Task> tasks = new Storage(basePath.toString()).loadTasks(ui);
+        noteIds(tasks);
+        if (Files.exists(journalPath)) {
+            replay(tasks, ui, 0, events);
+        }
+        return tasks;
+    }
+
+    /**
+     * Appends the event to the journal, taking a snapshot when enough events have accumulated.
+     *
+     * @param tasks The full list of tasks after the change.
+     * @param event The change that was just applied.
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void saveTasks(List<Task> tasks, TaskEvent event) throws IOException {
+        assert event != null : "event must not be null";
+        saveTasks(tasks, List.of(event));
+    }
+
+    /**
+     * Appends the events to the journal in one write, taking a snapshot when enough events have accumulated.
+     *
+     * @param tasks The full list of tasks after the changes.
+     * @param events The changes that were just applied, in the order they were applied.
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void saveTasks(List<Task> tasks, List<TaskEvent> events) throws IOException {
+        assert events != null : "events must not be null";
+        if (events.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (BufferedWriter writer = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (TaskEvent event : events) {
+                writer.write(serialiseEvent(event));
+                writer.newLine();
+                noteId(event.getTask());
+            }
+        } finally {
+            CommandMetrics.getInstance().addPersistTime(System.nanoTime() - start);
+        }
+        eventCount += events.size();
+        eventsSinceSnapshot += events.size();
+        if (eventsSinceSnapshot >= snapshotInterval) {
+            saveTasks(tasks);
+        }
+    }
+
+    /**
+     * Writes a full snapshot of the tasks and records how much of the journal it covers.
+     *
+     * @param tasks The list of tasks to save.
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void saveTasks(List<Task> tasks) throws IOException {
+        snapshotOffset = Files.exists(journalPath) ? Files.size(journalPath) : 0;
+        super.saveTasks(tasks);
+        eventsSinceSnapshot = 0;
+        // The header now gives the position, so an older marker must not be read instead
+        Files.deleteIfExists(markerPath);
+    }
+
+    /**
+     * Returns the header giving the snapshot's position in the journal.
+     *
+     * @return The header line.
+     */
+    @Override
+    protected String header() {
+        return HEADER_PREFIX + eventCount + " " + snapshotOffset;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    private void startJournal(List<Task> tasks) throws IOException {
+        createParentDirectories();
+        Files.copy(getFilePath(), basePath, StandardCopyOption.REPLACE_EXISTING);
+        Files.createFile(journalPath);
+        eventCount = 0;
+        saveTasks(tasks);
+    }
+
+    /**
+     * Reads the number of events the snapshot includes and the journal offset to replay from,
+     * from the snapshot's header or, for a snapshot written before headers, the marker file beside it.
+     *
+     * @return The event count and offset, or null if they are damaged.
+     */
+    private long[] readPosition(Ui ui) throws IOException {
+        String header;
+        try (BufferedReader reader = Files.newBufferedReader(getFilePath(), StandardCharsets.UTF_8)) {
+            header = reader.readLine();
+        }
+        String position;
+        if (header != null && header.startsWith(HEADER_PREFIX)) {
+            position = header.substring(HEADER_PREFIX.length());
+        } else if (Files.exists(markerPath)) {
+            position = Files.readString(markerPath, StandardCharsets.UTF_8);
+        } else {
+            return new long[] {0, 0};
+        }
+        String[] parts = position.trim().split(" ");
+        try {
+            long[] parsed = {Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+            if (parsed[0] >= 0 && parsed[1] >= 0 && parsed[1] <= Files.size(journalPath)) {
+                return parsed;
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // Reported below
+        }
+        ui.showStorageCorruptionWarning(position + " (damaged snapshot position, the journal is not replayed)");
+        return null;
+    }
+
+    private long countEvents() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            return reader.lines().filter(line -> !line.isBlank()).count();
+        }
+    }
+
+    /**
+     * Replays journal events starting at the given byte offset onto the task list, stopping at the first
+     * event that cannot be applied. Only events followed by a line separator are applied, since an event
+     * without one was cut short while being appended.
+     *
+     * @return How far the replay got.
+     */
+    private Replay replay(List<Task> tasks, Ui ui, long offset, long limit) throws IOException {
+        byte[] journal;
+        try (SeekableByteChannel channel = Files.newByteChannel(journalPath)) {
+            channel.position(offset);
+            journal = Channels.newInputStream(channel).readAllBytes();
+        }
+        Replay replay = new Replay();
+        replay.end = offset;
+        int lineStart = 0;
+        while (replay.applied < limit && lineStart < journal.length) {
+            int newline = lineStart;
+            while (newline < journal.length && journal[newline] != '\n') {
+                newline++;
+            }
+            String line = new String(journal, lineStart, newline - lineStart, StandardCharsets.UTF_8).trim();
+            if (newline == journal.length) {
+                ui.showStorageCorruptionWarning(line + " (event was cut short, it is dropped)");
+                replay.isTorn = true;
+                return replay;
+            }
+            if (!line.isEmpty()) {
+                try {
+                    applyEvent(tasks, line);
+                } catch (Exception e) {
+                    ui.showStorageCorruptionWarning(line + " (" + e.getMessage()
+                            + ", the events after it are not replayed)");
+                    replay.isStoppedByDamage = true;
+                    return replay;
+                }
+                replay.applied++;
+            }
+            lineStart = newline + 1;
+            replay.end = offset + lineStart;
+        }
+        return replay;
+    }
+
+    private void applyEvent(List<Task> tasks, String line) throws BongException {
+        String[] parts = line.split("\\s*\\|\\s*", 4);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("invalid journal line: expected at least 3 parts");
+        }
+        if (!parts[0].trim().equals(VERSION)) {
+            throw new IllegalArgumentException("unsupported journal version: " + parts[0].trim());
+        }
+        TaskEvent.Type type = TaskEvent.Type.valueOf(parts[1].trim());
+        int index = Integer.parseInt(parts[2].trim());
+
+        switch (type) {
+        case ADDED:
+            Task added = parseLineToTask(requireTaskPart(parts));
+            tasks.add(index, added);
+            noteId(added);
+            break;
+        case REMOVED:
+            tasks.remove(index);
+            break;
+        case MARKED:
+            tasks.get(index).setMark();
+            break;
+        case UNMARKED:
+            tasks.get(index).setUnmark();
+            break;
+        case RESCHEDULED:
+            Task rescheduled = parseLineToTask(requireTaskPart(parts));
+            tasks.set(index, rescheduled);
+            noteId(rescheduled);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown event type: " + type);
+        }
+    }
+
+    private String requireTaskPart(String[] parts) {
+        if (parts.length < 4) {
+            throw new IllegalArgumentException("missing task in journal line");
+        }
+        return parts[3];
+    }
+
+    private String serialiseEvent(TaskEvent event) {
+        String line = VERSION + SEPARATOR + event.getType() + SEPARATOR + event.getIndex();
+        switch (event.getType()) {
+        case ADDED:
+        case RESCHEDULED:
+            return line + SEPARATOR + serialiseTask(event.getTask());
+        default:
+            return line;
+        }
+    }
+}
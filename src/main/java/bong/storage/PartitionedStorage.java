@@ -0,0 +1,259 @@
+package bong.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.DoubleConsumer;
+
+import bong.metrics.CommandMetrics;
+import bong.metrics.StorageEvent;
+import bong.task.Task;
+import bong.task.TaskEvent;
+import bong.ui.Ui;
+
+/**
+ * Storage that keeps todos, and the deadlines and events of each month, in separate segment
+ * files (see PartitionedTaskFormat), so a change only rewrites the segments it touches:
+ * marking a task rewrites its own segment, and snoozing a task into another month rewrites two.
+ * Plain text, binary and compressed files are read as well, and are split into segments on the first save.
+ */
+public class PartitionedStorage extends Storage {
+    // Key of each task and the segment it is stored in, in list order; null when they are not known
+    private List<Long> keys;
+    private List<String> segments;
+    // Segments named in the manifest, and the generation and next id it records
+    private Set<String> manifest;
+    private long generation;
+    private long manifestNextId;
+
+    public PartitionedStorage(String filePath) {
+        super(filePath);
+    }
+
+    /**
+     * Loads the tasks from every segment, or from a single-file task file that has not been split yet.
+     *
+     * @param ui The Ui object for displaying warnings about corrupted data.
+     * @param progress Receives the fraction of segments loaded so far.
+     * @return A List<Task> containing the tasks in order.
+     * @throws IOException If an I/O error occurs while accessing the storage files.
+     */
+    @Override
+    public List<Task> loadTasks(Ui ui, DoubleConsumer progress) throws IOException {
+        keys = null;
+        if (Files.notExists(getFilePath()) || !PartitionedTaskFormat.isPartitioned(getFilePath())) {
+            return super.loadTasks(ui, progress);
+        }
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        PartitionedTaskFormat.Partitions partitions = PartitionedTaskFormat.read(getFilePath(),
+                this::parseLineToTask, ui, progress);
+        keys = partitions.keys;
+        segments = partitions.segments;
+        manifest = new LinkedHashSet<>(partitions.manifest);
+        generation = partitions.generation;
+        manifestNextId = partitions.nextId;
+        noteLoadedIds(partitions.tasks, partitions.nextId);
+        commitStorageEvent(event, "load", partitions.tasks.size());
+        return partitions.tasks;
+    }
+
+    /**
+     * Rewrites only the segments the change touches. When the position of every task is not known,
+     * or an added task cannot be given a key between its neighbours, everything is rewritten instead.
+     * Before a task is removed, the manifest is brought up to date with the next id if it is behind,
+     * since the removed task's id is then no longer in any segment.
+     *
+     * @param tasks The full list of tasks after the change.
+     * @param event The change that was just applied.
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void saveTasks(List<Task> tasks, TaskEvent event) throws IOException {
+        assert event != null : "event must not be null";
+        if (event.getTask() != null) {
+            noteId(event.getTask());
+        }
+        Set<String> changed = keys == null ? null : applyEvent(tasks.size(), event);
+        if (changed == null) {
+            saveTasks(tasks);
+            return;
+        }
+        long start = System.nanoTime();
+        StorageEvent storageEvent = new StorageEvent();
+        storageEvent.begin();
+        try {
+            if (event.getType() == TaskEvent.Type.REMOVED && manifestNextId < getNextId()) {
+                writeManifest();
+            }
+            writeChangedSegments(tasks, changed);
+        } catch (IOException e) {
+            // The files may now be ahead of what we know about them, so the next save starts afresh
+            keys = null;
+            throw e;
+        } finally {
+            CommandMetrics.getInstance().addPersistTime(System.nanoTime() - start);
+        }
+        commitStorageEvent(storageEvent, "update", changed.size());
+    }
+
+    /**
+     * Updates the keys and segments for the change.
+     *
+     * @return The segments to rewrite, the one a task moved into first, or null if everything must be rewritten.
+     */
+    private Set<String> applyEvent(int size, TaskEvent event) {
+        int index = event.getIndex();
+        Set<String> changed = new LinkedHashSet<>();
+        switch (event.getType()) {
+        case ADDED:
+            if (keys.size() != size - 1) {
+                return null;
+            }
+            long key;
+            if (index == keys.size()) {
+                key = keys.isEmpty() ? 0 : keys.get(keys.size() - 1) + 1;
+            } else if (index > 0 && keys.get(index) - keys.get(index - 1) > 1) {
+                key = keys.get(index - 1) + (keys.get(index) - keys.get(index - 1)) / 2;
+            } else {
+                return null;
+            }
+            String segment = PartitionedTaskFormat.segmentOf(event.getTask());
+            keys.add(index, key);
+            segments.add(index, segment);
+            changed.add(segment);
+            break;
+        case REMOVED:
+            if (keys.size() != size + 1) {
+                return null;
+            }
+            keys.remove(index);
+            changed.add(segments.remove(index));
+            break;
+        case MARKED:
+        case UNMARKED:
+            if (keys.size() != size) {
+                return null;
+            }
+            changed.add(segments.get(index));
+            break;
+        case RESCHEDULED:
+            if (keys.size() != size) {
+                return null;
+            }
+            String moved = PartitionedTaskFormat.segmentOf(event.getTask());
+            changed.add(moved);
+            changed.add(segments.set(index, moved));
+            break;
+        default:
+            return null;
+        }
+        return changed;
+    }
+
+    /**
+     * Rewrites the given segments in order, adding any new one to the manifest as soon as it is written.
+     * A task moving between segments is therefore written to its new segment before it is removed from
+     * its old one, so a crash in between leaves two copies of it under the same key, and loading keeps one.
+     * Keys are never renumbered within a generation, so two records only share a key if they are
+     * copies of the same task.
+     */
+    private void writeChangedSegments(List<Task> tasks, Set<String> changed) throws IOException {
+        for (String segment : changed) {
+            writeSegment(tasks, segment);
+            if (manifest.add(segment)) {
+                writeManifest();
+            }
+        }
+    }
+
+    /**
+     * Splits all tasks into segments of a new generation, numbering their keys afresh, and then switches
+     * to them by replacing the manifest. A crash before the switch leaves the previous generation in use.
+     * Segments left over from earlier generations are deleted once the new manifest is in place.
+     *
+     * @param tasks The list of tasks to save.
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void saveTasks(List<Task> tasks) throws IOException {
+        assert tasks != null : "saveTasks requires a non-null list";
+        long start = System.nanoTime();
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        keys = null;
+        noteIds(tasks);
+        List<Long> newKeys = new ArrayList<>(tasks.size());
+        List<String> newSegments = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            newKeys.add((long) i);
+            newSegments.add(PartitionedTaskFormat.segmentOf(tasks.get(i)));
+        }
+        try {
+            segments = newSegments;
+            manifest = new TreeSet<>(newSegments);
+            Files.createDirectories(PartitionedTaskFormat.segmentDirectory(getFilePath()));
+            for (String segment : manifest) {
+                writeSegment(tasks, newKeys, segment, generation + 1);
+            }
+            generation++;
+            writeManifest();
+            deleteUnlistedSegments();
+        } finally {
+            CommandMetrics.getInstance().addPersistTime(System.nanoTime() - start);
+        }
+        keys = newKeys;
+        commitStorageEvent(event, "save", tasks.size());
+    }
+
+    private void writeSegment(List<Task> tasks, String segment) throws IOException {
+        writeSegment(tasks, keys, segment, generation);
+    }
+
+    private void writeSegment(List<Task> tasks, List<Long> taskKeys, String segment, long segmentGeneration)
+            throws IOException {
+        Path path = PartitionedTaskFormat.segmentPath(getFilePath(), segment, segmentGeneration);
+        writeAtomically(path, out -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (int i = 0; i < tasks.size(); i++) {
+                if (segments.get(i).equals(segment)) {
+                    writer.write(PartitionedTaskFormat.serialiseRecord(taskKeys.get(i), serialiseTask(tasks.get(i))));
+                    writer.newLine();
+                }
+            }
+            writer.flush();
+        });
+    }
+
+    private void writeManifest() throws IOException {
+        long nextId = getNextId();
+        writeAtomically(out -> PartitionedTaskFormat.writeManifest(manifest, generation, nextId, out));
+        manifestNextId = nextId;
+    }
+
+    private void deleteUnlistedSegments() throws IOException {
+        Path directory = PartitionedTaskFormat.segmentDirectory(getFilePath());
+        Set<String> listed = new HashSet<>();
+        for (String segment : manifest) {
+            listed.add(PartitionedTaskFormat.segmentFileName(segment, generation));
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                "*" + PartitionedTaskFormat.SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                if (!listed.contains(file.getFileName().toString())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
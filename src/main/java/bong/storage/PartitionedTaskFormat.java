@@ -0,0 +1,287 @@
+package bong.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+
+import bong.task.Deadline;
+import bong.task.Event;
+import bong.task.Task;
+import bong.ui.Ui;
+
+/**
+ * Reads and writes the task list split into segments by date.
+ * The task file itself becomes a manifest recording the next id and the generation of the segments,
+ * and naming the segments:
+ *  bong partitions v1
+ *  # next-id 42
+ *  # generation 3
+ *  todo
+ *  2025-10
+ * Each segment is a text file in the directory beside it, named after the segment and its generation
+ * ("bong.txt.parts/2025-10.g3.txt"), holding the todos, or the deadlines and events dated in that month.
+ * Every full save writes a new generation and then switches to it by replacing the manifest, so the
+ * segments the manifest names are never overwritten with renumbered keys.
+ * Manifests written before generations name segment files without one ("2025-10.txt").
+ * Segment lines are stored task lines prefixed with a key that orders the tasks across segments:
+ *  key | T | done | description | crc:xxxxxxxx
+ * with the checksum covering the key as well as the task.
+ */
+final class PartitionedTaskFormat {
+    static final String TODO_SEGMENT = "todo";
+    static final String SEGMENT_SUFFIX = ".txt";
+
+    // Lower case, so a manifest is never taken for the binary format with its "BONG" magic
+    private static final String MANIFEST_HEADER = "bong partitions v1";
+    private static final byte[] MANIFEST_MAGIC = MANIFEST_HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final String KEY_SEPARATOR = " | ";
+    private static final String GENERATION_HEADER = Storage.HEADER_MARKER + " generation ";
+
+    private PartitionedTaskFormat() {}
+
+    /**
+     * The tasks of a partitioned file together with where each one is stored.
+     */
+    static class Partitions {
+        final List<Task> tasks = new ArrayList<>();
+        final List<Long> keys = new ArrayList<>();
+        final List<String> segments = new ArrayList<>();
+        final List<String> manifest = new ArrayList<>();
+        // Next id recorded in the manifest, 0 for a manifest written before it was recorded
+        long nextId;
+        // Generation of the segments, 0 for a manifest written before generations
+        long generation;
+    }
+
+    /**
+     * Returns whether the file is a partition manifest.
+     *
+     * @param file The task file.
+     * @return True if the tasks are stored in segments.
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isPartitioned(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return Arrays.equals(in.readNBytes(MANIFEST_MAGIC.length), MANIFEST_MAGIC);
+        }
+    }
+
+    /**
+     * Returns the name of the segment a task belongs in: its month, or the todo segment for undated tasks.
+     * Events are filed under the month they start in.
+     *
+     * @param task The task.
+     * @return The segment name.
+     */
+    static String segmentOf(Task task) {
+        if (task instanceof Deadline) {
+            return YearMonth.from(((Deadline) task).getDeadline()).toString();
+        } else if (task instanceof Event) {
+            return YearMonth.from(((Event) task).getStart()).toString();
+        }
+        return TODO_SEGMENT;
+    }
+
+    static Path segmentDirectory(Path file) {
+        return Paths.get(file + ".parts");
+    }
+
+    static Path segmentPath(Path file, String segment, long generation) {
+        return segmentDirectory(file).resolve(segmentFileName(segment, generation));
+    }
+
+    static String segmentFileName(String segment, long generation) {
+        return generation == 0 ? segment + SEGMENT_SUFFIX : segment + ".g" + generation + SEGMENT_SUFFIX;
+    }
+
+    /**
+     * Reads the segment names listed in the manifest, and the next id and generation it records.
+     *
+     * @param file The manifest.
+     * @param partitions Receives the segment names, in the order they are listed, the next id and the generation.
+     * @throws IOException If the manifest cannot be read or names a segment that cannot exist.
+     */
+    private static void readManifest(Path file, Partitions partitions) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(MANIFEST_HEADER)) {
+            throw new IOException("unsupported partition manifest: " + file);
+        }
+        List<String> segments = partitions.manifest;
+        for (String line : lines.subList(1, lines.size())) {
+            String segment = line.trim();
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith(GENERATION_HEADER)) {
+                partitions.generation = parseGeneration(segment, file);
+                continue;
+            }
+            if (segment.charAt(0) == Storage.HEADER_MARKER) {
+                partitions.nextId = Math.max(partitions.nextId, Storage.parseNextId(segment));
+                continue;
+            }
+            if (!segment.equals(TODO_SEGMENT) && !segment.matches("\\d{4}-\\d{2}")) {
+                throw new IOException("partition manifest names an unknown segment '" + segment + "': " + file);
+            }
+            segments.add(segment);
+        }
+    }
+
+    private static long parseGeneration(String line, Path file) throws IOException {
+        try {
+            long generation = Long.parseLong(line.substring(GENERATION_HEADER.length()).trim());
+            if (generation >= 0) {
+                return generation;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        // Without the generation no segment can be found, so this is no better than a missing manifest
+        throw new IOException("partition manifest has a damaged generation '" + line + "': " + file);
+    }
+
+    /**
+     * Loads every segment named in the manifest and puts the tasks back in order.
+     * Damaged lines are reported through the Ui and skipped, as is a second copy of a key,
+     * which a crash while a task was being moved between segments can leave behind.
+     *
+     * @param file The manifest.
+     * @param parser Turns each stored task line into a task.
+     * @param ui The Ui object for displaying warnings about corrupted data.
+     * @param progress Receives the fraction of segments read so far.
+     * @return The tasks, with the key and segment of each, the segments named and the next id and
+     *         generation recorded.
+     * @throws IOException If the manifest or a segment cannot be read.
+     */
+    static Partitions read(Path file, BlockCompressedFormat.LineParser parser, Ui ui, DoubleConsumer progress)
+            throws IOException {
+        Partitions manifest = new Partitions();
+        readManifest(file, manifest);
+        Partitions partitions = readSegments(file, manifest.manifest, manifest.generation, parser, ui, progress);
+        partitions.manifest.addAll(manifest.manifest);
+        partitions.nextId = manifest.nextId;
+        partitions.generation = manifest.generation;
+        return partitions;
+    }
+
+    /**
+     * Loads the given segments only, and puts their tasks in order.
+     *
+     * @param file The manifest.
+     * @param segments The segments to read; missing segment files count as empty.
+     * @param generation The generation of the segments.
+     * @param parser Turns each stored task line into a task.
+     * @param ui The Ui object for displaying warnings about corrupted data.
+     * @param progress Receives the fraction of segments read so far.
+     * @return The tasks, with the key and segment of each.
+     * @throws IOException If a segment cannot be read.
+     */
+    static Partitions readSegments(Path file, Collection<String> segments, long generation,
+            BlockCompressedFormat.LineParser parser, Ui ui, DoubleConsumer progress) throws IOException {
+        List<Record> records = new ArrayList<>();
+        int read = 0;
+        for (String segment : segments) {
+            progress.accept((double) read++ / segments.size());
+            Path path = segmentPath(file, segment, generation);
+            if (Files.notExists(path)) {
+                continue;
+            }
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    records.add(parseRecord(line, segment, parser));
+                } catch (Exception e) {
+                    ui.showStorageCorruptionWarning(line + " (" + e.getMessage() + ")");
+                }
+            }
+        }
+        records.sort(Comparator.comparingLong(record -> record.key));
+
+        Partitions partitions = new Partitions();
+        for (Record record : records) {
+            int last = partitions.keys.size() - 1;
+            if (last >= 0 && partitions.keys.get(last) == record.key) {
+                ui.showStorageCorruptionWarning(record.task + " (duplicate of key " + record.key + ", skipped)");
+                continue;
+            }
+            partitions.tasks.add(record.task);
+            partitions.keys.add(record.key);
+            partitions.segments.add(record.segment);
+        }
+        return partitions;
+    }
+
+    private static Record parseRecord(String line, String segment, BlockCompressedFormat.LineParser parser)
+            throws Exception {
+        String record = Storage.verifyChecksum(line, true);
+        int separator = record.indexOf(KEY_SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("record has no key");
+        }
+        long key = Long.parseLong(record, 0, separator, 10);
+        return new Record(key, segment, parser.parse(record.substring(separator + KEY_SEPARATOR.length())));
+    }
+
+    private static class Record {
+        private final long key;
+        private final String segment;
+        private final Task task;
+
+        Record(long key, String segment, Task task) {
+            this.key = key;
+            this.segment = segment;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Returns the stored line for a task, its key and checksum included.
+     *
+     * @param key The key that orders the task.
+     * @param taskLine The task serialised as in the text file, without a checksum.
+     * @return The stored line, without a line separator.
+     */
+    static String serialiseRecord(long key, String taskLine) {
+        return Storage.withChecksum(key + KEY_SEPARATOR + taskLine);
+    }
+
+    /**
+     * Writes a manifest recording the next id and the generation, and naming the given segments.
+     *
+     * @param segments The segment names.
+     * @param generation The generation of the segments.
+     * @param nextId The lowest id above every id ever saved.
+     * @param out Where to write the manifest; not closed.
+     * @throws IOException If writing fails.
+     */
+    static void writeManifest(Collection<String> segments, long generation, long nextId, OutputStream out)
+            throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(MANIFEST_HEADER);
+        writer.newLine();
+        writer.write(Storage.nextIdHeader(nextId));
+        writer.newLine();
+        writer.write(GENERATION_HEADER + generation);
+        writer.newLine();
+        for (String segment : segments) {
+            writer.write(segment);
+            writer.newLine();
+        }
+        writer.flush();
+    }
+}
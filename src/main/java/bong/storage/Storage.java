@@ -1,20 +1,36 @@
 package bong.storage;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleConsumer;
+import java.util.zip.CRC32;
 
 import bong.exception.BongException;
+import bong.metrics.CommandMetrics;
+import bong.metrics.StorageEvent;
 import bong.ui.Ui;
 import bong.task.Deadline;
 import bong.task.Event;
 import bong.task.Task;
+import bong.task.TaskEvent;
 import bong.task.Todo;
 import bong.util.DateTimeUtil;
 
@@ -24,13 +40,56 @@ import bong.util.DateTimeUtil;
  *  T | done | description
  *  D | done | description | yyyy-MM-dd HHmm
  *  E | done | description | yyyy-MM-dd HHmm | yyyy-MM-dd HHmm
+ * then " | id:n@ssssssss", the task's id and stamp, and on every line " | crc:xxxxxxxx", a CRC-32 of the
+ * record that lets a torn or corrupted line be told apart from a good one. Lines without them, from older
+ * files, still load, and their tasks are given ids by the task list.
+ * Lines starting with '#' before the first task are a header, written in the same atomic replace as the tasks.
+ * It holds "# next-id n", the lowest id above every id ever saved, so that the ids of deleted and archived
+ * tasks are not given out again, and any line a subclass keeps its own state in.
  */
 public class Storage {
+    // Number of lines parsed between progress reports while loading
+    private static final int PROGRESS_INTERVAL = 4096;
+    // Length of " | yyyy-MM-dd HHmm"
+    private static final int SERIALISED_DATE_LENGTH = 18;
+    // Each saved record ends with " | crc:" and the CRC-32 of the rest of the line as 8 hex digits
+    private static final String CHECKSUM_PREFIX = " | crc:";
+    private static final int CHECKSUM_DIGITS = 8;
+    private static final int CHECKSUM_LENGTH = CHECKSUM_PREFIX.length() + CHECKSUM_DIGITS;
+    // A record ends with " | id:" and the task's id in decimal, if the task has been given one,
+    // then '@' and its stamp as 8 hex digits, if it has one
+    private static final String ID_PREFIX = " | id:";
+    private static final int MAX_ID_DIGITS = 18;
+    private static final char STAMP_SEPARATOR = '@';
+    private static final int STAMP_DIGITS = 8;
+    // Position of the done flag within a record, as in "T | 0 | ..."
+    private static final int DONE_FLAG_OFFSET = 4;
+    private static final int LINE_SEPARATOR_BYTES = System.lineSeparator().length();
+    protected static final char HEADER_MARKER = '#';
+    private static final String NEXT_ID_HEADER = HEADER_MARKER + " next-id ";
+    // Damage found while only looking for ids is reported when the tasks themselves are loaded or listed
+    protected static final Ui SILENT_UI = new Ui() {
+        @Override
+        public void showStorageCorruptionWarning(String line) {
+        }
+    };
+
     private final Path filePath;
+    // Append-only, block-compressed file of archived tasks, read only when asked for
+    private final Path archivePath;
+    // Byte offset of each record in the file, followed by the file length; null when the layout is unknown
+    private long[] recordOffsets;
+    // Size, modification time and identity of the file when it was last read or written here
+    private volatile List<Object> knownFileState;
+    // Lowest id above every id loaded or saved here, and the one recorded in the file when it was last loaded,
+    // 0 if it recorded none
+    private long nextId = 1;
+    private long recordedNextId;
 
     public Storage(String filePath) {
         assert filePath != null : "filePath must not be null";
         this.filePath = Paths.get(filePath);
+        this.archivePath = Paths.get(filePath + ".archive.gz");
     }
 
     /**
@@ -43,36 +102,620 @@ public class Storage {
      * @throws IOException If an I/O error occurs while accessing the storage file.
      */
     public List<Task> loadTasks(Ui ui) throws IOException {
+        return loadTasks(ui, progress -> { });
+    }
+
+    /**
+     * Loads tasks from the storage file, reporting progress as lines are parsed.
+     * Files in the binary format written by BinaryStorage, block-compressed files written
+     * by CompressedStorage and partitioned files written by PartitionedStorage are recognised and read too.
+     *
+     * @param ui The Ui object for displaying warnings about corrupted data.
+     * @param progress Receives the fraction of lines parsed so far, between 0 and 1.
+     * @return A List<Task> containing the tasks loaded from the file.
+     * @throws IOException If an I/O error occurs while accessing the storage file.
+     */
+    public List<Task> loadTasks(Ui ui, DoubleConsumer progress) throws IOException {
         assert ui != null : "Ui must not be null when loading tasks";
-        List<Task> tasks = new ArrayList<>();
+        recordedNextId = 0;
+        List<Task> tasks = readTasks(ui, progress);
+        rememberFileState();
+        noteLoadedIds(tasks, recordedNextId);
+        return tasks;
+    }
 
-        Path parent = filePath.getParent();
-        if (parent != null && Files.notExists(parent)) {
-            Files.createDirectories(parent);
+    /**
+     * Raises the next id above the loaded tasks and the next id the file recorded. A file written before
+     * the next id was recorded has its archive read as well, since archived tasks may hold the highest ids.
+     *
+     * @param tasks The tasks loaded.
+     * @param recorded The next id recorded in the file, or 0 if it records none.
+     * @throws IOException If the archive cannot be read.
+     */
+    protected void noteLoadedIds(List<Task> tasks, long recorded) throws IOException {
+        recordedNextId = recorded;
+        nextId = Math.max(nextId, recorded);
+        noteIds(tasks);
+        if (recorded == 0 && Files.exists(archivePath)) {
+            noteIds(loadArchivedTasks(SILENT_UI));
         }
+    }
+
+    private List<Task> readTasks(Ui ui, DoubleConsumer progress) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+
+        createParentDirectories();
         if (Files.notExists(filePath)) {
             Files.createFile(filePath);
+            recordOffsets = new long[] {0};
             return tasks;
         }
 
-        List<String> lines = Files.readAllLines(filePath, StandardCharsets.UTF_8);
-        for (String line : lines) {
-            if (line == null || line.trim().isEmpty()) {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        if (BinaryTaskFormat.isBinary(filePath)) {
+            recordOffsets = null;
+            BinaryTaskFormat.Contents contents = BinaryTaskFormat.read(filePath, ui, progress);
+            recordedNextId = contents.nextId;
+            commitStorageEvent(event, "load", contents.tasks.size());
+            return contents.tasks;
+        }
+        if (PartitionedTaskFormat.isPartitioned(filePath)) {
+            recordOffsets = null;
+            PartitionedTaskFormat.Partitions partitions = PartitionedTaskFormat.read(filePath,
+                    this::parseLineToTask, ui, progress);
+            recordedNextId = partitions.nextId;
+            commitStorageEvent(event, "load", partitions.tasks.size());
+            return partitions.tasks;
+        }
+        if (BlockCompressedFormat.isCompressed(filePath)) {
+            recordOffsets = null;
+            // Compressed files are always written with checksums, and the header is the first line
+            AtomicLong headerNextId = new AtomicLong();
+            tasks = BlockCompressedFormat.read(filePath, line -> {
+                if (line.charAt(0) == HEADER_MARKER) {
+                    headerNextId.accumulateAndGet(parseNextId(line), Math::max);
+                    return null;
+                }
+                return parseLineToTask(verifyChecksum(line, true));
+            }, ui, progress);
+            recordedNextId = headerNextId.get();
+            commitStorageEvent(event, "load", tasks.size());
+            return tasks;
+        }
+        // Lines are found in the raw bytes; a line is only decoded into a string if it cannot be loaded lazily
+        byte[] content = Files.readAllBytes(filePath);
+        boolean isChecksummed = isChecksummed(content);
+        // The offsets are only known if every line became a task, as they do in a file Bong wrote
+        boolean isLayoutKnown = isChecksummed;
+        long[] offsets = new long[16];
+        int lineStart = 0;
+        for (int lineNumber = 0; lineStart < content.length; lineNumber++) {
+            if (lineNumber % PROGRESS_INTERVAL == 0) {
+                progress.accept((double) lineStart / content.length);
+            }
+            int newline = indexOfNewline(content, lineStart);
+            int lineEnd = newline > lineStart && content[newline - 1] == '\r' ? newline - 1 : newline;
+            int nextLine = Math.min(newline + 1, content.length);
+            if (tasks.isEmpty() && lineEnd > lineStart && content[lineStart] == HEADER_MARKER) {
+                recordedNextId = Math.max(recordedNextId, parseNextId(new String(content, lineStart,
+                        lineEnd - lineStart, StandardCharsets.UTF_8)));
+                offsets[0] = nextLine;
+                lineStart = nextLine;
                 continue;
             }
+            if (isBlank(content, lineStart, lineEnd)) {
+                isLayoutKnown = false;
+                lineStart = nextLine;
+                continue;
+            }
+            boolean isVerified = hasChecksum(content, lineStart, lineEnd)
+                    && hasValidChecksum(content, lineStart, lineEnd - CHECKSUM_LENGTH);
+            // Only records whose checksum matches are known to be as Bong wrote them, so only they
+            // can have their done flag updated in place
+            isLayoutKnown &= isVerified;
             try {
-                Task t = parseLineToTask(line);
-                if (t != null) {
-                    tasks.add(t);
+                tasks.add(decodeLine(content, lineStart, lineEnd, isVerified, isChecksummed,
+                        newline < content.length));
+                if (tasks.size() == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
                 }
+                offsets[tasks.size()] = offsets[tasks.size() - 1] + (lineEnd - lineStart) + LINE_SEPARATOR_BYTES;
             } catch (Exception e) {
+                isLayoutKnown = false;
+                String line = new String(content, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
                 ui.showStorageCorruptionWarning(line + " (" + e.getMessage() + ")");
             }
+            lineStart = nextLine;
         }
+        recordOffsets = isLayoutKnown && offsets[tasks.size()] == content.length
+                ? Arrays.copyOf(offsets, tasks.size() + 1) : null;
+        commitStorageEvent(event, "load", tasks.size());
         return tasks;
     }
 
-    private Task parseLineToTask(String line) throws BongException {
+    /**
+     * Loads one line of the text file. A record whose checksum matches is only checked for its shape,
+     * and its task keeps the record's bytes to decode the description and dates from when they are needed.
+     * Anything else is decoded and parsed straight away, so damage is still found while loading.
+     */
+    private Task decodeLine(byte[] content, int start, int end, boolean isVerified, boolean isChecksummed,
+            boolean isComplete) throws BongException {
+        int recordEnd = end - CHECKSUM_LENGTH;
+        if (isVerified) {
+            int idEnd = stampFieldStart(content, start, recordEnd);
+            int idStart = idFieldStart(content, start, idEnd);
+            int fieldsEnd = idStart < 0 ? recordEnd : idStart;
+            if (isWellFormed(content, start, fieldsEnd)) {
+                Task task = decodeLazily(content, start, fieldsEnd);
+                if (idStart >= 0) {
+                    task.setId(parseId(content, idStart + ID_PREFIX.length(), idEnd));
+                    if (idEnd < recordEnd) {
+                        task.setStamp(Integer.parseUnsignedInt(new String(content, idEnd + 1, STAMP_DIGITS,
+                                StandardCharsets.US_ASCII), 16));
+                    }
+                }
+                return task;
+            }
+        }
+        String line = new String(content, start, end - start, StandardCharsets.UTF_8);
+        return parseLineToTask(verifyChecksum(line, isChecksummed, isComplete));
+    }
+
+    private static Task decodeLazily(byte[] content, int start, int fieldsEnd) {
+        EncodedRecord fields = new EncodedRecord(content, start, fieldsEnd - start);
+        boolean isDone = content[start + DONE_FLAG_OFFSET] == '1';
+        switch (content[start]) {
+        case 'D':
+            return new Deadline(fields, isDone);
+        case 'E':
+            return new Event(fields, isDone);
+        default:
+            return new Todo(fields, isDone);
+        }
+    }
+
+    /**
+     * Returns where the stamp after the record's id starts, its '@' included, or recordEnd if it has none.
+     */
+    private static int stampFieldStart(byte[] content, int start, int recordEnd) {
+        int separator = recordEnd - STAMP_DIGITS - 1;
+        if (separator <= start || content[separator] != STAMP_SEPARATOR) {
+            return recordEnd;
+        }
+        for (int i = separator + 1; i < recordEnd; i++) {
+            if (Character.digit(content[i], 16) < 0) {
+                return recordEnd;
+            }
+        }
+        return separator;
+    }
+
+    /**
+     * Returns where the record's " | id:n" field starts, or -1 if it does not end in one.
+     */
+    private static int idFieldStart(byte[] content, int start, int recordEnd) {
+        int digitsStart = recordEnd;
+        while (digitsStart > start && recordEnd - digitsStart < MAX_ID_DIGITS
+                && content[digitsStart - 1] >= '0' && content[digitsStart - 1] <= '9') {
+            digitsStart--;
+        }
+        int fieldStart = digitsStart - ID_PREFIX.length();
+        if (digitsStart == recordEnd || fieldStart <= start) {
+            return -1;
+        }
+        for (int i = 0; i < ID_PREFIX.length(); i++) {
+            if (content[fieldStart + i] != ID_PREFIX.charAt(i)) {
+                return -1;
+            }
+        }
+        return fieldStart;
+    }
+
+    private static long parseId(byte[] content, int digitsStart, int end) {
+        long id = 0;
+        for (int i = digitsStart; i < end; i++) {
+            id = id * 10 + (content[i] - '0');
+        }
+        if (id <= 0) {
+            throw new IllegalArgumentException("task ids must be positive");
+        }
+        return id;
+    }
+
+    private static boolean hasValidChecksum(byte[] content, int start, int recordEnd) {
+        long stored = 0;
+        for (int i = recordEnd + CHECKSUM_PREFIX.length(); i < recordEnd + CHECKSUM_LENGTH; i++) {
+            int digit = Character.digit(content[i], 16);
+            if (digit < 0) {
+                return false;
+            }
+            stored = stored << 4 | digit;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(content, start, recordEnd - start);
+        return crc.getValue() == stored;
+    }
+
+    /**
+     * Returns whether the record has the exact shape serialiseTask gives it, "T | 0 | " followed by
+     * the description and as many more fields as its type has, so that decoding it later cannot fail.
+     */
+    private static boolean isWellFormed(byte[] content, int start, int recordEnd) {
+        if (recordEnd - start < DONE_FLAG_OFFSET + 4) {
+            return false;
+        }
+        int fields;
+        switch (content[start]) {
+        case 'T':
+            fields = 3;
+            break;
+        case 'D':
+            fields = 4;
+            break;
+        case 'E':
+            fields = 5;
+            break;
+        default:
+            return false;
+        }
+        byte flag = content[start + DONE_FLAG_OFFSET];
+        if (!isSeparator(content, start + 1) || (flag != '0' && flag != '1')
+                || !isSeparator(content, start + DONE_FLAG_OFFSET + 1)) {
+            return false;
+        }
+        int separators = 0;
+        for (int i = start; i < recordEnd; i++) {
+            if (content[i] == '|') {
+                separators++;
+            }
+        }
+        return separators == fields - 1;
+    }
+
+    private static boolean isSeparator(byte[] content, int position) {
+        return content[position] == ' ' && content[position + 1] == '|' && content[position + 2] == ' ';
+    }
+
+    private static int indexOfNewline(byte[] content, int from) {
+        for (int i = from; i < content.length; i++) {
+            if (content[i] == '\n') {
+                return i;
+            }
+        }
+        return content.length;
+    }
+
+    private static boolean isBlank(byte[] content, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (content[i] != ' ' && content[i] != '\t' && content[i] != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the file has been changed by something other than this Storage since
+     * it last loaded or saved it, for example by hand or by a program syncing it from elsewhere.
+     *
+     * @return True if the file is not as this Storage left it.
+     * @throws IOException If the file cannot be examined.
+     */
+    public boolean isChangedExternally() throws IOException {
+        return !readFileState().equals(knownFileState);
+    }
+
+    private void rememberFileState() throws IOException {
+        knownFileState = readFileState();
+    }
+
+    private List<Object> readFileState() throws IOException {
+        if (Files.notExists(filePath)) {
+            return List.of();
+        }
+        BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        Object fileKey = attributes.fileKey() == null ? "" : attributes.fileKey();
+        return List.of(attributes.size(), attributes.lastModifiedTime(), fileKey);
+    }
+
+    protected void commitStorageEvent(StorageEvent event, String operation, int taskCount) throws IOException {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.path = filePath.toString();
+            event.tasks = taskCount;
+            event.bytes = Files.size(filePath);
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns whether the file was written with per-record checksums, as every file recording the next id was.
+     * Files written before checksums were added have none, and are still accepted.
+     */
+    private static boolean isChecksummed(byte[] content) {
+        int lineStart = 0;
+        while (lineStart < content.length) {
+            int newline = indexOfNewline(content, lineStart);
+            int lineEnd = newline > lineStart && content[newline - 1] == '\r' ? newline - 1 : newline;
+            if (hasChecksum(content, lineStart, lineEnd) || startsWith(content, lineStart, lineEnd, NEXT_ID_HEADER)) {
+                return true;
+            }
+            lineStart = newline + 1;
+        }
+        return false;
+    }
+
+    private static boolean startsWith(byte[] content, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (content[start + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasChecksum(byte[] content, int start, int end) {
+        int suffixStart = end - CHECKSUM_LENGTH;
+        if (suffixStart < start) {
+            return false;
+        }
+        for (int i = 0; i < CHECKSUM_PREFIX.length(); i++) {
+            if (content[suffixStart + i] != CHECKSUM_PREFIX.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasChecksum(String line) {
+        int suffixStart = line.length() - CHECKSUM_LENGTH;
+        return suffixStart >= 0 && line.startsWith(CHECKSUM_PREFIX, suffixStart);
+    }
+
+    /**
+     * Checks the record's checksum and returns the record without it.
+     * In a checksummed file a record without a checksum is treated as torn.
+     *
+     * @param line The stored line.
+     * @param isChecksummed Whether every record in the file should carry a checksum.
+     * @return The record, ready for parseLineToTask.
+     */
+    static String verifyChecksum(String line, boolean isChecksummed) {
+        return verifyChecksum(line, isChecksummed, false);
+    }
+
+    /**
+     * Checks the record's checksum and returns the record without it.
+     * In a checksummed file, a line without a checksum that is followed by a line separator is taken to
+     * have been written by hand, unless it ends in what is left of a damaged checksum; any other line
+     * without a checksum is treated as torn. A line whose checksum does not match is corrupted, unless
+     * only its done flag differs, as an interrupted in-place update leaves it.
+     *
+     * @param line The stored line.
+     * @param isChecksummed Whether the file's records carry checksums.
+     * @param isComplete Whether the line is followed by a line separator.
+     * @return The record, ready for parseLineToTask.
+     */
+    private static String verifyChecksum(String line, boolean isChecksummed, boolean isComplete) {
+        if (!hasChecksum(line)) {
+            if (isChecksummed && !isComplete) {
+                throw new IllegalArgumentException("record has no checksum, it may have been cut short");
+            }
+            if (isChecksummed && endsWithChecksumDigits(line)) {
+                throw new IllegalArgumentException("checksum is damaged, the record is corrupted");
+            }
+            return line;
+        }
+        int suffixStart = line.length() - CHECKSUM_LENGTH;
+        String record = line.substring(0, suffixStart);
+        String stored = line.substring(suffixStart + CHECKSUM_PREFIX.length());
+        if (stored.equals(checksumOf(record))) {
+            return record;
+        }
+        // A done flag updated in place is written separately from its checksum, so a crash between the
+        // two writes leaves the flag toggled; the checksum then vouches for the other value of the flag
+        String toggled = withDoneFlagToggled(record);
+        if (toggled != null && stored.equals(checksumOf(toggled))) {
+            return toggled;
+        }
+        throw new IllegalArgumentException("checksum mismatch, the record is corrupted");
+    }
+
+    private static boolean endsWithChecksumDigits(String line) {
+        if (line.length() < CHECKSUM_LENGTH) {
+            return false;
+        }
+        for (int i = line.length() - CHECKSUM_DIGITS; i < line.length(); i++) {
+            if (Character.digit(line.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        // The stamp after an id is hex digits too
+        int separator = line.length() - STAMP_DIGITS - 1;
+        int idStart = line.lastIndexOf(ID_PREFIX, separator) + ID_PREFIX.length();
+        return line.charAt(separator) != STAMP_SEPARATOR || idStart < ID_PREFIX.length() || idStart == separator
+                || !line.substring(idStart, separator).chars().allMatch(c -> c >= '0' && c <= '9');
+    }
+
+    private static String withDoneFlagToggled(String record) {
+        if (record.length() <= DONE_FLAG_OFFSET) {
+            return null;
+        }
+        char flag = record.charAt(DONE_FLAG_OFFSET);
+        if (flag != '0' && flag != '1') {
+            return null;
+        }
+        StringBuilder toggled = new StringBuilder(record);
+        toggled.setCharAt(DONE_FLAG_OFFSET, flag == '0' ? '1' : '0');
+        return toggled.toString();
+    }
+
+    static String withChecksum(String record) {
+        return record + CHECKSUM_PREFIX + checksumOf(record);
+    }
+
+    private static String checksumOf(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        String hex = Long.toHexString(crc.getValue());
+        return "00000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * Returns the number of bytes the text takes up in UTF-8, without encoding it.
+     */
+    private static int utf8Length(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                // A surrogate pair takes four bytes, two for each half
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns the lowest id above every id loaded or saved by this storage, including those of tasks
+     * since deleted or archived, as far as the task file records them.
+     *
+     * @return The id to give the next new task.
+     */
+    public long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Raises the next id above the id of the given task.
+     *
+     * @param task A task being loaded or saved.
+     */
+    protected void noteId(Task task) {
+        nextId = Math.max(nextId, task.getId() + 1);
+    }
+
+    protected void noteIds(List<Task> tasks) {
+        for (Task task : tasks) {
+            noteId(task);
+        }
+    }
+
+    /**
+     * Returns whether the file last loaded recorded the next id, as every file saved since it was added does.
+     *
+     * @return False for a file written before the next id was recorded.
+     */
+    protected boolean isNextIdRecorded() {
+        return recordedNextId > 0;
+    }
+
+    /**
+     * Returns the header line recording the next id.
+     *
+     * @param nextId The next id.
+     * @return The header line, without a line separator.
+     */
+    static String nextIdHeader(long nextId) {
+        return NEXT_ID_HEADER + nextId;
+    }
+
+    /**
+     * Returns the next id a header line records.
+     *
+     * @param line A header line.
+     * @return The next id, or 0 if the line records none or it is damaged.
+     */
+    static long parseNextId(String line) {
+        if (!line.startsWith(NEXT_ID_HEADER)) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(line.substring(NEXT_ID_HEADER.length()).trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Appends tasks to the archive kept beside the task file. The archive is block-compressed
+     * and only ever appended to, so archiving costs the same however large the archive grows.
+     * The new blocks are on disk when this returns.
+     *
+     * @param tasks The tasks to archive.
+     * @throws IOException If writing fails; the archive is then left as it was.
+     */
+    public void archiveTasks(List<Task> tasks) throws IOException {
+        createParentDirectories();
+        try (FileChannel channel = FileChannel.open(archivePath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Drop the torn end of an earlier append that was cut short
+            long end = BlockCompressedFormat.intactLength(channel);
+            channel.truncate(end);
+            channel.position(end);
+            try {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+                try (BlockCompressedFormat.BlockWriter writer = new BlockCompressedFormat.BlockWriter(out)) {
+                    for (Task task : tasks) {
+                        writer.writeLine(serialiseRecord(task));
+                    }
+                }
+                out.flush();
+                channel.force(true);
+            } catch (IOException e) {
+                channel.truncate(end);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Loads the archived tasks, oldest first.
+     *
+     * @param ui The Ui object for displaying warnings about corrupted data.
+     * @return The archived tasks, or an empty list if nothing has been archived.
+     * @throws IOException If the archive cannot be read.
+     */
+    public List<Task> loadArchivedTasks(Ui ui) throws IOException {
+        if (Files.notExists(archivePath)) {
+            return new ArrayList<>();
+        }
+        return BlockCompressedFormat.read(archivePath, line -> parseLineToTask(verifyChecksum(line, true)),
+                ui, progress -> { });
+    }
+
+    /**
+     * Returns the path of the main storage file.
+     *
+     * @return Path of the storage file.
+     */
+    protected Path getFilePath() {
+        return filePath;
+    }
+
+    protected void createParentDirectories() throws IOException {
+        Path parent = filePath.getParent();
+        if (parent != null && Files.notExists(parent)) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    /**
+     * Parses a single storage line into a Task.
+     *
+     * @param line The line to parse.
+     * @return The decoded task.
+     * @throws BongException If a date field cannot be parsed.
+     */
+    protected Task parseLineToTask(String line) throws BongException {
         String[] parts = line.split("\\s*\\|\\s*", -1);
         // Expect at least: type | done | description
         if (parts.length < 3) {
@@ -80,17 +723,59 @@ public class Storage {
         }
         String type = parts[0].trim();
         boolean done = parts[1].trim().equals("1") || parts[1].trim().equalsIgnoreCase("true");
+        long id = 0;
+        int stamp = 0;
+        // The description always comes before the id, so a todo with only three parts has none
+        String last = parts[parts.length - 1];
+        if (parts.length > 3 && last.startsWith("id:")) {
+            int separator = last.indexOf(STAMP_SEPARATOR);
+            id = parseId(last.substring("id:".length(), separator < 0 ? last.length() : separator));
+            stamp = separator < 0 ? 0 : parseStamp(last.substring(separator + 1));
+            parts = Arrays.copyOf(parts, parts.length - 1);
+        }
 
+        Task task;
         switch (type) {
             case "T":
-                return createTodo(parts, done);
+                task = createTodo(parts, done);
+                break;
             case "D":
-                return createDeadline(parts, done);
+                task = createDeadline(parts, done);
+                break;
             case "E":
-                return createEvent(parts, done);
+                task = createEvent(parts, done);
+                break;
             default:
                 throw new IllegalArgumentException("Unknown task type: " + type);
         }
+        if (id != 0) {
+            task.setId(id);
+            task.setStamp(stamp);
+        }
+        return task;
+    }
+
+    private static int parseStamp(String digits) {
+        try {
+            if (digits.trim().length() == STAMP_DIGITS) {
+                return Integer.parseUnsignedInt(digits.trim(), 16);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("invalid task stamp: " + digits);
+    }
+
+    private static long parseId(String digits) {
+        try {
+            long id = Long.parseLong(digits.trim());
+            if (id > 0) {
+                return id;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("invalid task id: " + digits);
     }
 
     private Task createTodo(String[] parts, boolean done) {
@@ -102,70 +787,314 @@ public class Storage {
         return todo;
     }
 
-    private Task createDeadline(String[] parts, boolean done) throws BongException {
+    private Task createDeadline(String[] parts, boolean done) {
         if (parts.length < 4) {
             throw new IllegalArgumentException("missing deadline field");
         }
         LocalDateTime deadline = LocalDateTime.parse(parts[3].trim(), DateTimeUtil.STORAGE);
-        Deadline deadlineTask = new Deadline(parts[2].trim(), deadline.format(DateTimeUtil.INPUT));
+        Deadline deadlineTask = new Deadline(parts[2].trim(), deadline);
         if (done) {
             deadlineTask.setMark();
         }
         return deadlineTask;
     }
 
-    private Task createEvent(String[] parts, boolean done) throws BongException {
+    private Task createEvent(String[] parts, boolean done) {
         if (parts.length < 5) {
             throw new IllegalArgumentException("missing event fields");
         }
         LocalDateTime start = LocalDateTime.parse(parts[3].trim(), DateTimeUtil.STORAGE);
         LocalDateTime end = LocalDateTime.parse(parts[4].trim(), DateTimeUtil.STORAGE);
-        Event eventTask = new Event(parts[2].trim(), start.format(DateTimeUtil.INPUT), end.format(DateTimeUtil.INPUT));
+        Event eventTask = new Event(parts[2].trim(), start, end);
         if (done) {
             eventTask.setMark();
         }
         return eventTask;
     }
 
-    /* 
+    /**
+     * Persists a single change to the task list.
+     * Marking or unmarking a task only changes its done flag and checksum, which are
+     * overwritten in place when the position of every record in the file is known.
+     * Structural changes rewrite the whole file; subclasses may record the event on its own.
+     *
+     * @param tasks The full list of tasks after the change.
+     * @param event The change that was just applied.
+     * @throws IOException If writing fails
+     */
+    public void saveTasks(List<Task> tasks, TaskEvent event) throws IOException {
+        assert event != null : "event must not be null";
+        boolean isDoneFlagChange = event.getType() == TaskEvent.Type.MARKED
+                || event.getType() == TaskEvent.Type.UNMARKED;
+        // Only a change of the done flag, which brings no new id, is written in place
+        if (isDoneFlagChange && recordOffsets != null && recordOffsets.length == tasks.size() + 1
+                && updateDoneFlag(event.getIndex(), event.getTask())) {
+            return;
+        }
+        saveTasks(tasks);
+    }
+
+    /**
+     * Persists several changes made to the task list together, such as archiving or syncing.
+     * The file is rewritten once for all of them; subclasses may record the events on their own.
+     *
+     * @param tasks The full list of tasks after the changes.
+     * @param events The changes that were just applied, in the order they were applied.
+     * @throws IOException If writing fails
+     */
+    public void saveTasks(List<Task> tasks, List<TaskEvent> events) throws IOException {
+        assert events != null : "events must not be null";
+        if (events.size() == 1) {
+            saveTasks(tasks, events.get(0));
+        } else if (!events.isEmpty()) {
+            saveTasks(tasks);
+        }
+    }
+
+    /**
+     * Overwrites the done flag and checksum of one record with positional writes.
+     *
+     * @return False if the file no longer has the expected layout, in which case nothing was written.
+     */
+    private boolean updateDoneFlag(int index, Task task) throws IOException {
+        long start = System.nanoTime();
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        String record = serialiseTask(task);
+        long recordStart = recordOffsets[index];
+        long checksumStart = recordOffsets[index + 1] - LINE_SEPARATOR_BYTES - CHECKSUM_DIGITS;
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.WRITE)) {
+            if (channel.size() != recordOffsets[recordOffsets.length - 1]) {
+                recordOffsets = null;
+                return false;
+            }
+            byte flag = (byte) record.charAt(DONE_FLAG_OFFSET);
+            channel.write(ByteBuffer.wrap(new byte[] {flag}), recordStart + DONE_FLAG_OFFSET);
+            channel.write(ByteBuffer.wrap(checksumOf(record).getBytes(StandardCharsets.US_ASCII)), checksumStart);
+            channel.force(false);
+        } finally {
+            CommandMetrics.getInstance().addPersistTime(System.nanoTime() - start);
+        }
+        rememberFileState();
+        commitStorageEvent(event, "update", 1);
+        return true;
+    }
+
+    /*
      * Saves all tasks to the storage file (overwrites).
+     * The tasks are written to a temporary file, flushed to disk and then renamed over the
+     * storage file, so a crash part-way through leaves the previous version intact.
      * 
      * @param tasks The list of tasks to save.
      * @throws IOException If writing fails
      */
     public void saveTasks(List<Task> tasks) throws IOException {
         assert tasks != null : "saveTasks requires a non-null list";
-        Path parent = filePath.getParent();
-        if (parent != null && Files.notExists(parent)) {
-            Files.createDirectories(parent);
-        }
-        try (BufferedWriter writer = Files.newBufferedWriter(
-            filePath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-                for (Task t : tasks) {
-                    writer.write(serialiseTask(t));
+        long start = System.nanoTime();
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        recordOffsets = null;
+        noteIds(tasks);
+        long[] offsets = new long[tasks.size() + 1];
+        try {
+            String header = header();
+            String nextIdHeader = nextIdHeader(nextId);
+            writeAtomically(out -> {
+                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                if (header != null) {
+                    assert header.charAt(0) == HEADER_MARKER && header.indexOf('\n') < 0 : "header must be one line";
+                    writer.write(header);
                     writer.newLine();
+                    offsets[0] = utf8Length(header) + LINE_SEPARATOR_BYTES;
                 }
+                writer.write(nextIdHeader);
+                writer.newLine();
+                offsets[0] += utf8Length(nextIdHeader) + LINE_SEPARATOR_BYTES;
+                for (int i = 0; i < tasks.size(); i++) {
+                    String line = serialiseRecord(tasks.get(i));
+                    writer.write(line);
+                    writer.newLine();
+                    offsets[i + 1] = offsets[i] + utf8Length(line) + LINE_SEPARATOR_BYTES;
+                }
+                writer.flush();
+            });
+        } finally {
+            CommandMetrics.getInstance().addPersistTime(System.nanoTime() - start);
+        }
+        recordOffsets = Files.size(filePath) == offsets[tasks.size()] ? offsets : null;
+        commitStorageEvent(event, "save", tasks.size());
+    }
+
+    /**
+     * Returns the line a subclass keeps its own state in, written first in the header by saveTasks.
+     *
+     * @return A line starting with HEADER_MARKER, or null for no header.
+     */
+    protected String header() {
+        return null;
+    }
+
+    /**
+     * Writes the contents of the storage file.
+     */
+    @FunctionalInterface
+    protected interface FileContents {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Replaces the storage file with new contents. They are written to a temporary file,
+     * flushed to disk and then renamed over the storage file, so the file is never half-written.
+     *
+     * @param contents Writes the new contents.
+     * @throws IOException If writing fails; the storage file is then left as it was.
+     */
+    protected void writeAtomically(FileContents contents) throws IOException {
+        writeAtomically(filePath, contents);
+    }
+
+    /**
+     * Replaces the given file with new contents in the same way as the storage file.
+     *
+     * @param target The file to replace.
+     * @param contents Writes the new contents.
+     * @throws IOException If writing fails; the file is then left as it was.
+     */
+    protected void writeAtomically(Path target, FileContents contents) throws IOException {
+        createParentDirectories();
+        Path tempPath = Paths.get(target + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream out = newTempFileStream(channel);
+                contents.writeTo(out);
+                out.flush();
+                channel.force(true);
+            }
+            replaceWith(tempPath, target);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        if (target.equals(filePath)) {
+            rememberFileState();
         }
     }
 
+    /**
+     * Returns the stream tasks are written through; tests override it to simulate crashes.
+     */
+    OutputStream newTempFileStream(FileChannel channel) {
+        return Channels.newOutputStream(channel);
+    }
+
+    private static void replaceWith(Path tempPath, Path target) throws IOException {
+        try {
+            Files.move(tempPath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        // Make the rename itself durable; not every platform can sync a directory, so this is best effort
+        Path directory = target.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // The data is already on disk; only the rename might need replaying after a power cut
+        }
+    }
+
+    /**
+     * Serialises a task into the line stored for it, checksum included.
+     *
+     * @param task The task to serialise.
+     * @return The stored line, without a line separator.
+     */
+    protected String serialiseRecord(Task task) {
+        return withChecksum(serialiseTask(task));
+    }
+
      /*
      * Serialise a task into a single-line storage representation.
      * 
      * @param task The task to serialise.
      * @return Serialised string.
      */
-    private String serialiseTask(Task task) {
-        String doneFlag = task.isDone() ? "1" : "0";
-        if (task instanceof Todo) {
-            return "T" + " | " + doneFlag + " | " + task.getDescription();
-        } else if (task instanceof Deadline) {
-            Deadline d = (Deadline) task;
-            return "D" + " | " + doneFlag + " | " + d.getDescription() + " | " + d.getDeadline().format(DateTimeUtil.STORAGE);
+    protected static String serialiseTask(Task task) {
+        StringBuilder line = new StringBuilder(serialisedLength(task));
+        appendContent(line, task);
+        if (task.getId() > 0) {
+            line.append(ID_PREFIX).append(task.getId());
+            if (task.getStamp() != 0) {
+                line.append(STAMP_SEPARATOR);
+                for (int shift = Integer.SIZE - 4; shift >= 0; shift -= 4) {
+                    line.append(Character.forDigit((task.getStamp() >>> shift) & 0xF, 16));
+                }
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * Serialises a task without its id, so that the same task gives the same record in any task file.
+     *
+     * @param task The task to serialise.
+     * @return The record, without id or checksum.
+     */
+    static String serialiseContent(Task task) {
+        StringBuilder line = new StringBuilder(serialisedLength(task));
+        appendContent(line, task);
+        return line.toString();
+    }
+
+    private static void appendContent(StringBuilder line, Task task) {
+        if (task instanceof Deadline) {
+            line.append('D');
+        } else if (task instanceof Event) {
+            line.append('E');
+        } else {
+            line.append('T');
+        }
+        line.append(" | ").append(task.isDone() ? '1' : '0').append(" | ").append(task.getDescription());
+        if (task instanceof Deadline) {
+            appendDate(line, ((Deadline) task).getDeadline());
         } else if (task instanceof Event) {
             Event e = (Event) task;
-            return "E" + " | " + doneFlag + " | " + e.getDescription() + " | " + 
-                e.getStart().format(DateTimeUtil.STORAGE) + " | " + e.getEnd().format(DateTimeUtil.STORAGE);
+            appendDate(line, e.getStart());
+            appendDate(line, e.getEnd());
         }
-        return "T" + " | " + doneFlag + " | " + task.getDescription();
+    }
+
+    /**
+     * Returns the exact length of the serialised task, id and stamp included, so the builder never has to grow.
+     */
+    private static int serialisedLength(Task task) {
+        int dates = task instanceof Deadline ? 1 : task instanceof Event ? 2 : 0;
+        int stamp = task.getStamp() != 0 ? 1 + STAMP_DIGITS : 0;
+        int id = task.getId() > 0 ? ID_PREFIX.length() + Long.toString(task.getId()).length() + stamp : 0;
+        return "T | 0 | ".length() + task.getDescription().length() + dates * SERIALISED_DATE_LENGTH + id;
+    }
+
+    /**
+     * Appends the date in the DateTimeUtil.STORAGE pattern (yyyy-MM-dd HHmm), writing the digits
+     * directly instead of going through the formatter, which allocates on every call.
+     */
+    private static void appendDate(StringBuilder line, LocalDateTime dateTime) {
+        line.append(" | ");
+        int year = dateTime.getYear();
+        if (year < 1000 || year > 9999) {
+            DateTimeUtil.STORAGE.formatTo(dateTime, line);
+            return;
+        }
+        line.append(year).append('-');
+        appendTwoDigits(line, dateTime.getMonthValue());
+        line.append('-');
+        appendTwoDigits(line, dateTime.getDayOfMonth());
+        line.append(' ');
+        appendTwoDigits(line, dateTime.getHour());
+        appendTwoDigits(line, dateTime.getMinute());
+    }
+
+    private static void appendTwoDigits(StringBuilder line, int value) {
+        line.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
     }
 }
@@ -0,0 +1,115 @@
+package bong.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coordinates the processes sharing one task file, such as the console and the GUI.
+ * A lock file beside the task file is locked while a process reads or changes the tasks, and holds
+ * a version number that goes up with every change, so a process can tell from eight bytes whether
+ * the tasks it holds are out of date.
+ * Lock file format: the version as a big-endian long; an empty file is version 0.
+ */
+public class TaskFileLock implements Closeable {
+    // File locks belong to the whole JVM, so cores in the same JVM take turns here before locking the file
+    private static final Map<Path, ReentrantLock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final FileChannel channel;
+    private final ReentrantLock processLock;
+    private final ByteBuffer versionBuffer = ByteBuffer.allocate(Long.BYTES);
+    private FileLock fileLock;
+    private long version;
+
+    /**
+     * Opens the lock file of the given task file, creating it if needed.
+     *
+     * @param taskFilePath Path of the task file.
+     * @throws IOException If the lock file cannot be opened.
+     */
+    public TaskFileLock(String taskFilePath) throws IOException {
+        Path lockPath = Paths.get(taskFilePath + ".lock").toAbsolutePath().normalize();
+        Files.createDirectories(lockPath.getParent());
+        this.channel = FileChannel.open(lockPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.processLock = PROCESS_LOCKS.computeIfAbsent(lockPath, path -> new ReentrantLock());
+    }
+
+    /**
+     * Waits until no other process is changing the tasks, then locks them.
+     * Any number of processes may hold a shared lock at once, but an exclusive lock keeps everyone else out.
+     *
+     * @param isExclusive True to change the tasks, false only to read them.
+     * @return The current version of the tasks.
+     * @throws IOException If the lock file cannot be locked or read.
+     */
+    public long lock(boolean isExclusive) throws IOException {
+        processLock.lock();
+        try {
+            fileLock = channel.lock(0, Long.MAX_VALUE, !isExclusive);
+            version = readVersion();
+            return version;
+        } catch (IOException | RuntimeException e) {
+            unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Records that the tasks have been changed under the exclusive lock.
+     *
+     * @return The new version.
+     * @throws IOException If the version cannot be written.
+     */
+    public long advanceVersion() throws IOException {
+        assert fileLock != null && !fileLock.isShared() : "the version may only change under the exclusive lock";
+        version++;
+        versionBuffer.clear();
+        versionBuffer.putLong(version).flip();
+        while (versionBuffer.hasRemaining()) {
+            channel.write(versionBuffer, versionBuffer.position());
+        }
+        channel.force(false);
+        return version;
+    }
+
+    /**
+     * Lets other processes at the tasks again. Does nothing if the lock is not held.
+     *
+     * @throws IOException If the lock cannot be released.
+     */
+    public void unlock() throws IOException {
+        try {
+            if (fileLock != null) {
+                fileLock.release();
+            }
+        } finally {
+            fileLock = null;
+            if (processLock.isHeldByCurrentThread()) {
+                processLock.unlock();
+            }
+        }
+    }
+
+    private long readVersion() throws IOException {
+        versionBuffer.clear();
+        while (versionBuffer.hasRemaining() && channel.read(versionBuffer, versionBuffer.position()) > 0) {
+            // Keep reading until the version is complete or the file ends
+        }
+        return versionBuffer.hasRemaining() ? 0 : versionBuffer.getLong(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,84 @@
+package bong.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the task file for changes and reports them on a background thread once they have settled.
+ * Bong's own saves are reported too; the listener tells them apart with Storage.isChangedExternally.
+ */
+public class TaskFileWatcher implements Closeable {
+    // How long the file must be left alone before a burst of writes counts as finished
+    private static final long SETTLE_MILLIS = 200;
+
+    private final Path fileName;
+    private final WatchService watchService;
+    private final Runnable onChange;
+
+    private TaskFileWatcher(Path file, Runnable onChange) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        this.fileName = file.getFileName();
+        this.watchService = directory.getFileSystem().newWatchService();
+        this.onChange = onChange;
+        // A save renames a new file into place, which shows up as the file being created
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    /**
+     * Starts watching the file.
+     *
+     * @param file The task file; its directory must exist.
+     * @param onChange Run on the watcher thread after the file has changed.
+     * @return The watcher, to be closed when no longer needed.
+     * @throws IOException If the directory cannot be watched.
+     */
+    public static TaskFileWatcher start(Path file, Runnable onChange) throws IOException {
+        TaskFileWatcher watcher = new TaskFileWatcher(file, onChange);
+        Thread thread = new Thread(watcher::run, "bong-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean isChanged = isAboutFile(watchService.take());
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isChanged |= isAboutFile(key);
+                }
+                if (isChanged) {
+                    onChange.run();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed; stop watching
+        }
+    }
+
+    /**
+     * Consumes the key's events and returns whether any of them may concern the task file.
+     */
+    private boolean isAboutFile(WatchKey key) {
+        boolean isAboutFile = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            // Events that were dropped may have been about the file
+            isAboutFile |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+        }
+        key.reset();
+        return isAboutFile;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
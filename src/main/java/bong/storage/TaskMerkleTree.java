@@ -0,0 +1,271 @@
+package bong.storage;
+
+import bong.task.Deadline;
+import bong.task.Event;
+import bong.task.Task;
+import bong.task.TaskEvent;
+import bong.task.TaskListListener;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Merkle tree over the stored records of a task list, used to find where two task files differ
+ * without comparing them record by record.
+ * Each task is filed under a key made of its id, so the same task lands in the same leaf in both trees
+ * wherever it sits in its list, and a task renamed in one copy is still matched with itself. Copies of a task
+ * file written before tasks had ids are keyed by type and description instead. A leaf hashes the records
+ * filed under it, and every other node hashes its children, so two trees are compared by walking down only
+ * the nodes whose hashes differ: the work grows with the number of differences, not with the number of tasks.
+ * A tree keyed by id can also follow a task list's changes as a listener, rehashing only the leaf a change
+ * touches and the nodes above it, so it does not have to be built again for every comparison.
+ * Ids are left out of the records themselves; they are already in the keys.
+ */
+public final class TaskMerkleTree implements TaskListListener {
+    private static final int FANOUT = 16;
+    private static final int BITS_PER_LEVEL = 4;
+    // Tasks per leaf the depth is chosen for, and the deepest tree built
+    private static final int LEAF_SIZE = 8;
+    private static final int MAX_DEPTH = 5;
+
+    private final int depth;
+    private final boolean isKeyedById;
+    // Every node's hash, root first, each level left to right; node i's children are FANOUT * i + 1 onwards
+    private final long[] hashes;
+    private final int firstLeaf;
+    private final Map<Integer, Map<String, Entry>> leaves = new HashMap<>();
+    private final MessageDigest digest = sha256();
+    private final ByteBuffer children = ByteBuffer.allocate(FANOUT * Long.BYTES);
+
+    /**
+     * A task found in only one of two trees, or in both with different records.
+     */
+    public static final class Difference {
+        private final Task ours;
+        private final Task theirs;
+
+        private Difference(Entry ours, Entry theirs) {
+            this.ours = ours == null ? null : ours.task;
+            this.theirs = theirs == null ? null : theirs.task;
+        }
+
+        /**
+         * Returns the task as it is in this tree.
+         *
+         * @return The task, or null if only the other tree has it.
+         */
+        public Task getOurs() {
+            return ours;
+        }
+
+        /**
+         * Returns the task as it is in the other tree.
+         *
+         * @return The task, or null if only this tree has it.
+         */
+        public Task getTheirs() {
+            return theirs;
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final long hash;
+        private final Task task;
+
+        private Entry(String key, long hash, Task task) {
+            this.key = key;
+            this.hash = hash;
+            this.task = task;
+        }
+    }
+
+    private TaskMerkleTree(int depth, boolean isKeyedById) {
+        this.depth = depth;
+        this.isKeyedById = isKeyedById;
+        int nodes = 0;
+        int levelWidth = 1;
+        for (int level = 0; level < depth; level++) {
+            nodes += levelWidth;
+            levelWidth *= FANOUT;
+        }
+        this.firstLeaf = nodes;
+        this.hashes = new long[nodes + levelWidth];
+    }
+
+    /**
+     * Returns the depth to build two trees at so that they can be compared,
+     * deep enough that a leaf holds only a few of the tasks of the larger list.
+     *
+     * @param taskCount The number of tasks in the larger of the two lists.
+     * @return The depth to pass to build.
+     */
+    public static int depthFor(int taskCount) {
+        int depth = 1;
+        long capacity = (long) FANOUT * LEAF_SIZE;
+        while (capacity < taskCount && depth < MAX_DEPTH) {
+            depth++;
+            capacity *= FANOUT;
+        }
+        return depth;
+    }
+
+    /**
+     * Builds the tree for a task list.
+     *
+     * @param tasks The tasks, in list order.
+     * @param depth The depth of the tree; only trees of the same depth can be compared.
+     * @param isKeyedById Whether tasks are keyed by id; tasks without one are still keyed by description.
+     * @return The tree.
+     */
+    public static TaskMerkleTree build(List<Task> tasks, int depth, boolean isKeyedById) {
+        assert depth >= 1 && depth <= MAX_DEPTH : "depth out of range";
+        TaskMerkleTree tree = new TaskMerkleTree(depth, isKeyedById);
+        // Tasks keyed by the same description are told apart by how many came before them
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (Task task : tasks) {
+            String key = tree.keyOf(task);
+            int occurrence = occurrences.merge(key, 1, Integer::sum);
+            if (occurrence > 1) {
+                key = key + " #" + occurrence;
+            }
+            tree.file(key, task);
+        }
+        for (int node = tree.firstLeaf - 1; node >= 0; node--) {
+            tree.rehash(node);
+        }
+        return tree;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Refiles the task a change to the followed list touched, and rehashes the nodes above its leaf.
+     * Only trees keyed by id can follow a list, since a task list gives every task an id.
+     *
+     * @param event The change that was applied.
+     */
+    @Override
+    public void onTaskChanged(TaskEvent event) {
+        assert isKeyedById && event.getTask().getId() != 0 : "only trees keyed by id can follow a task list";
+        String key = keyOf(event.getTask());
+        int leaf;
+        if (event.getType() == TaskEvent.Type.REMOVED) {
+            leaf = leafOf(key);
+            Entry removed = leaves.getOrDefault(leaf, Map.of()).get(key);
+            if (removed == null) {
+                return;
+            }
+            leaves.get(leaf).remove(key);
+            hashes[firstLeaf + leaf] ^= removed.hash;
+        } else {
+            // Added, or changed in place, which refiles it with its new record
+            leaf = file(key, event.getTask());
+        }
+        for (int node = (firstLeaf + leaf - 1) / FANOUT; ; node = (node - 1) / FANOUT) {
+            rehash(node);
+            if (node == 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Files the task under the key, replacing any task filed there, and updates its leaf's hash.
+     *
+     * @return The leaf it was filed in.
+     */
+    private int file(String key, Task task) {
+        long hash = hash(key + "\n" + Storage.serialiseContent(task));
+        int leaf = leafOf(key);
+        Entry replaced = leaves.computeIfAbsent(leaf, l -> new HashMap<>()).put(key, new Entry(key, hash, task));
+        // Combined so that the order of the tasks within a leaf does not matter
+        hashes[firstLeaf + leaf] ^= hash ^ (replaced == null ? 0 : replaced.hash);
+        return leaf;
+    }
+
+    private int leafOf(String key) {
+        return (int) (hash(key) >>> (Long.SIZE - BITS_PER_LEVEL * depth));
+    }
+
+    private void rehash(int node) {
+        children.clear();
+        for (int child = FANOUT * node + 1; child <= FANOUT * node + FANOUT; child++) {
+            children.putLong(hashes[child]);
+        }
+        hashes[node] = ByteBuffer.wrap(digest.digest(children.array())).getLong();
+    }
+
+    /**
+     * Finds the tasks that are in only one of the two trees, or in both with different records.
+     *
+     * @param other A tree of the same depth.
+     * @return The differences, in no particular order.
+     */
+    public List<Difference> diff(TaskMerkleTree other) {
+        if (other.depth != depth || other.isKeyedById != isKeyedById) {
+            throw new IllegalArgumentException("Trees of different depths or keys cannot be compared");
+        }
+        List<Difference> differences = new ArrayList<>();
+        collectDifferences(other, 0, differences);
+        return differences;
+    }
+
+    private void collectDifferences(TaskMerkleTree other, int node, List<Difference> differences) {
+        if (hashes[node] == other.hashes[node]) {
+            return;
+        }
+        if (node >= firstLeaf) {
+            compareLeaves(leaves.getOrDefault(node - firstLeaf, Map.of()),
+                    other.leaves.getOrDefault(node - firstLeaf, Map.of()), differences);
+            return;
+        }
+        for (int child = FANOUT * node + 1; child <= FANOUT * node + FANOUT; child++) {
+            collectDifferences(other, child, differences);
+        }
+    }
+
+    private static void compareLeaves(Map<String, Entry> ours, Map<String, Entry> theirs,
+            List<Difference> differences) {
+        for (Entry their : theirs.values()) {
+            Entry our = ours.get(their.key);
+            if (our == null || our.hash != their.hash) {
+                differences.add(new Difference(our, their));
+            }
+        }
+        for (Entry our : ours.values()) {
+            if (!theirs.containsKey(our.key)) {
+                differences.add(new Difference(our, null));
+            }
+        }
+    }
+
+    private String keyOf(Task task) {
+        if (isKeyedById && task.getId() != 0) {
+            return "#" + task.getId();
+        }
+        char type = task instanceof Deadline ? 'D' : task instanceof Event ? 'E' : 'T';
+        return type + " | " + task.getDescription();
+    }
+
+    private long hash(String text) {
+        return ByteBuffer.wrap(digest.digest(text.getBytes(StandardCharsets.UTF_8))).getLong();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new AssertionError(e);
+        }
+    }
+}
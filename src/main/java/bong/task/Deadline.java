@@ -31,7 +31,36 @@ public class Deadline extends Task {
         }
     }
 
+    /**
+     * Constructs a Deadline task due at the given date and time.
+     *
+     * @param description The description of the deadline task.
+     * @param deadline The deadline date and time.
+     */
+    public Deadline(String description, LocalDateTime deadline) {
+        super(description);
+        assert deadline != null : "deadline must not be null";
+        this.deadline = deadline;
+    }
+
+    /**
+     * Constructs a loaded Deadline whose description and deadline are decoded when first needed.
+     *
+     * @param encodedFields The fields as they were loaded.
+     * @param isDone Whether the task is done.
+     */
+    public Deadline(EncodedTaskFields encodedFields, boolean isDone) {
+        super(encodedFields, isDone);
+    }
+
+    @Override
+    protected void decodeFields(EncodedTaskFields fields) {
+        super.decodeFields(fields);
+        this.deadline = fields.decodeDate(0);
+    }
+
     public LocalDateTime getDeadline() {
+        ensureDecoded();
         return this.deadline;
     }
 
@@ -42,12 +71,13 @@ public class Deadline extends Task {
      */
     public void setDeadline(LocalDateTime newDeadline) {
         assert newDeadline != null : "new deadline must not be null";
+        ensureDecoded();
         this.deadline = newDeadline;
     }
 
     @Override
     public String toString() {
-        return "[D]" + super.toString() + " (by: " + this.deadline.format(DateTimeUtil.OUTPUT) + ")";
+        return "[D]" + super.toString() + " (by: " + this.getDeadline().format(DateTimeUtil.OUTPUT) + ")";
     }
 
 }
\ No newline at end of file
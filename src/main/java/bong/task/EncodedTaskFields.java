@@ -0,0 +1,25 @@
+package bong.task;
+
+import java.time.LocalDateTime;
+
+/**
+ * The description and dates of a loaded task that have not been decoded yet.
+ * A task built from them decodes them the first time one of those fields is read or changed,
+ * so tasks that are never looked at are never decoded.
+ */
+public interface EncodedTaskFields {
+    /**
+     * Decodes the description.
+     *
+     * @return The description.
+     */
+    String decodeDescription();
+
+    /**
+     * Decodes one of the task's dates.
+     *
+     * @param position 0 for the deadline or the start of an event, 1 for the end of an event.
+     * @return The date and time.
+     */
+    LocalDateTime decodeDate(int position);
+}
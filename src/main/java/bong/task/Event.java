@@ -39,11 +39,44 @@ public class Event extends Task {
         }
     }
 
+    /**
+     * Constructs an Event task running between the given dates and times.
+     *
+     * @param description The description of the event task.
+     * @param start The event start date and time.
+     * @param end The event end date and time.
+     */
+    public Event(String description, LocalDateTime start, LocalDateTime end) {
+        super(description);
+        assert start != null && end != null : "event times must not be null";
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Constructs a loaded Event whose description and times are decoded when first needed.
+     *
+     * @param encodedFields The fields as they were loaded.
+     * @param isDone Whether the task is done.
+     */
+    public Event(EncodedTaskFields encodedFields, boolean isDone) {
+        super(encodedFields, isDone);
+    }
+
+    @Override
+    protected void decodeFields(EncodedTaskFields fields) {
+        super.decodeFields(fields);
+        this.start = fields.decodeDate(0);
+        this.end = fields.decodeDate(1);
+    }
+
     public LocalDateTime getStart() {
+        ensureDecoded();
         return this.start;
     }
 
     public LocalDateTime getEnd() {
+        ensureDecoded();
         return this.end;
     }
 
@@ -54,6 +87,7 @@ public class Event extends Task {
      */
     public void setStart(LocalDateTime newStart) {
         assert newStart != null : "new start time must not be null";
+        ensureDecoded();
         this.start = newStart;
     }
 
@@ -64,12 +98,13 @@ public class Event extends Task {
      */
     public void setEnd(LocalDateTime newEnd) {
         assert newEnd != null : "new end time must not be null";
+        ensureDecoded();
         this.end = newEnd;
     }
 
     @Override
     public String toString() {
-        return "[E]" + super.toString() + " (from " + this.start.format(DateTimeUtil.OUTPUT)
-                + " to " + this.end.format(DateTimeUtil.OUTPUT) + ")";
+        return "[E]" + super.toString() + " (from " + this.getStart().format(DateTimeUtil.OUTPUT)
+                + " to " + this.getEnd().format(DateTimeUtil.OUTPUT) + ")";
     }
 }
@@ -8,6 +8,13 @@ package bong.task;
 public class Task {
     protected String description;
     protected boolean isDone;
+    // Stays the same however the list changes; 0 until the task list gives the task one
+    private long id;
+    // Drawn at random when the task is created and kept in every copy of the task file, so the task can be
+    // told apart from one that another copy gave the same id; 0 for a task from before stamps were kept
+    private int stamp;
+    // Description and dates still to be decoded, or null once they have been
+    private volatile EncodedTaskFields encodedFields;
 
     /**
      * Constructs a Task object with the given description.
@@ -20,6 +27,44 @@ public class Task {
         this.isDone = false;
     }
 
+    /**
+     * Constructs a loaded Task whose description, and any dates, are decoded when first needed.
+     *
+     * @param encodedFields The fields as they were loaded.
+     * @param isDone Whether the task is done.
+     */
+    protected Task(EncodedTaskFields encodedFields, boolean isDone) {
+        assert encodedFields != null : "encoded fields must not be null";
+        this.encodedFields = encodedFields;
+        this.isDone = isDone;
+    }
+
+    /**
+     * Decodes the fields the task was loaded with, unless that has already happened.
+     * Must be called before any field other than the done flag is read or changed.
+     */
+    protected final void ensureDecoded() {
+        if (encodedFields == null) {
+            return;
+        }
+        synchronized (this) {
+            EncodedTaskFields fields = encodedFields;
+            if (fields != null) {
+                decodeFields(fields);
+                encodedFields = null;
+            }
+        }
+    }
+
+    /**
+     * Sets the fields from their encoded form; subclasses with dates decode those too.
+     *
+     * @param fields The fields as they were loaded.
+     */
+    protected void decodeFields(EncodedTaskFields fields) {
+        this.description = fields.decodeDescription();
+    }
+
     /**
      * Returns a string representing the status icon of the task.
      * "X" if the task is done, " " (space) if it's not done.
@@ -31,9 +76,42 @@ public class Task {
     }
 
     public String getDescription() {
+        ensureDecoded();
         return this.description;
     }
 
+    /**
+     * Returns the id the task keeps however the list around it changes.
+     *
+     * @return The id, or 0 if the task has not been given one yet.
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Sets the id of the task, as stored with it or given by the task list.
+     *
+     * @param id A positive id.
+     */
+    public void setId(long id) {
+        assert id > 0 : "task ids must be positive";
+        this.id = id;
+    }
+
+    /**
+     * Returns the stamp that, unlike the id, no other copy of the task file gives to another task.
+     *
+     * @return The stamp, or 0 if the task has none.
+     */
+    public int getStamp() {
+        return this.stamp;
+    }
+
+    public void setStamp(int stamp) {
+        this.stamp = stamp;
+    }
+
     public boolean isDone() {
         return this.isDone;
     }
@@ -48,6 +126,6 @@ public class Task {
 
     @Override
     public String toString() {
-        return "[" + this.getStatusIcon() + "] " + this.description;
+        return "[" + this.getStatusIcon() + "] " + this.getDescription();
     } 
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package bong.task;
+
+/**
+ * Represents a single change made to a TaskList.
+ * Each event records what kind of change happened, the zero-based position it
+ * happened at and the task involved, so that it can be persisted or replayed.
+ */
+public class TaskEvent {
+
+    /**
+     * Represents the kinds of changes that can be made to a TaskList.
+     */
+    public enum Type {
+        ADDED, REMOVED, MARKED, UNMARKED, RESCHEDULED
+    }
+
+    private final Type type;
+    private final int index;
+    private final Task task;
+
+    /**
+     * Constructs a TaskEvent.
+     *
+     * @param type The kind of change.
+     * @param index The zero-based position of the affected task.
+     * @param task The affected task (after the change has been applied).
+     */
+    public TaskEvent(Type type, int index, Task task) {
+        assert type != null : "event type must not be null";
+        assert index >= 0 : "event index must not be negative";
+        this.type = type;
+        this.index = index;
+        this.task = task;
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    public Task getTask() {
+        return this.task;
+    }
+
+    @Override
+    public String toString() {
+        return this.type + " #" + this.index + ": " + this.task;
+    }
+}
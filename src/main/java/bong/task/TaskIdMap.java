@@ -0,0 +1,194 @@
+package bong.task;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from task id to task, kept by TaskList so that a task can be found by its id in constant time.
+ * Each entry also holds a position the list last recorded for the task, which the list itself keeps valid.
+ * Ids are stored as primitive longs in an open-addressing table, so entries are not boxed and lookups do
+ * not allocate. Slots are probed linearly; removal shifts the entries after the gap back, so no
+ * tombstones build up however often tasks are added and deleted.
+ */
+final class TaskIdMap {
+    private static final int INITIAL_CAPACITY = 16;
+    // 0 is never a task id, so it marks an empty slot
+    private static final long EMPTY = 0;
+
+    private long[] ids;
+    private Task[] tasks;
+    private int[] positions;
+    private int size;
+
+    TaskIdMap() {
+        this(0);
+    }
+
+    /**
+     * Constructs a map with room for the given number of tasks before it has to grow.
+     *
+     * @param expectedSize The number of tasks expected.
+     */
+    TaskIdMap(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < 2L * expectedSize && capacity < (1 << 30)) {
+            capacity *= 2;
+        }
+        ids = new long[capacity];
+        tasks = new Task[capacity];
+        positions = new int[capacity];
+    }
+
+    /**
+     * Returns the task with the given id.
+     *
+     * @param id The task id.
+     * @return The task, or null if no task has that id.
+     */
+    Task get(long id) {
+        int slot = slotOfId(id);
+        return slot < 0 ? null : tasks[slot];
+    }
+
+    /**
+     * Returns the position last recorded for the task with the given id.
+     *
+     * @param id The task id.
+     * @return The position, or -1 if none was recorded or no task has that id.
+     */
+    int positionOf(long id) {
+        int slot = slotOfId(id);
+        return slot < 0 ? -1 : positions[slot];
+    }
+
+    /**
+     * Records the position of the task with the given id, if there is one.
+     *
+     * @param id The task id.
+     * @param position The task's 0-based position in the list.
+     */
+    void setPosition(long id, int position) {
+        int slot = slotOfId(id);
+        if (slot >= 0) {
+            positions[slot] = position;
+        }
+    }
+
+    private int slotOfId(long id) {
+        if (id == EMPTY) {
+            return -1;
+        }
+        int mask = ids.length - 1;
+        for (int slot = slotOf(id, mask); ids[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Files the task under its id, replacing any task filed under the same id, with no position recorded.
+     *
+     * @param task A task that has been given an id.
+     */
+    void put(Task task) {
+        put(task, -1);
+    }
+
+    /**
+     * Files the task under its id with its position, replacing any task filed under the same id.
+     *
+     * @param task A task that has been given an id.
+     * @param position The task's 0-based position in the list, or -1 if not known.
+     */
+    void put(Task task, int position) {
+        long id = task.getId();
+        assert id != EMPTY : "only tasks with an id can be filed";
+        // Kept at most half full, so probe sequences stay short
+        if (2 * (size + 1) > ids.length) {
+            resize(ids.length * 2);
+        }
+        insert(id, task, position);
+    }
+
+    private void insert(long id, Task task, int position) {
+        int mask = ids.length - 1;
+        int slot = slotOf(id, mask);
+        while (ids[slot] != EMPTY && ids[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        if (ids[slot] == EMPTY) {
+            size++;
+        }
+        ids[slot] = id;
+        tasks[slot] = task;
+        positions[slot] = position;
+    }
+
+    /**
+     * Removes the task with the given id, if there is one.
+     *
+     * @param id The task id.
+     */
+    void remove(long id) {
+        if (id == EMPTY) {
+            return;
+        }
+        int mask = ids.length - 1;
+        int slot = slotOf(id, mask);
+        while (ids[slot] != id) {
+            if (ids[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Moves back every later entry of the run whose home slot does not lie between the gap and itself
+        int gap = slot;
+        for (int next = (gap + 1) & mask; ids[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slotOf(ids[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                ids[gap] = ids[next];
+                tasks[gap] = tasks[next];
+                positions[gap] = positions[next];
+                gap = next;
+            }
+        }
+        ids[gap] = EMPTY;
+        tasks[gap] = null;
+        size--;
+    }
+
+    /**
+     * Removes every task.
+     */
+    void clear() {
+        Arrays.fill(ids, EMPTY);
+        Arrays.fill(tasks, null);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        long[] oldIds = ids;
+        Task[] oldTasks = tasks;
+        int[] oldPositions = positions;
+        ids = new long[capacity];
+        tasks = new Task[capacity];
+        positions = new int[capacity];
+        size = 0;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != EMPTY) {
+                insert(oldIds[i], oldTasks[i], oldPositions[i]);
+            }
+        }
+    }
+
+    private static int slotOf(long id, int mask) {
+        // Ids are handed out in sequence, so they are mixed before taking the low bits
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+}
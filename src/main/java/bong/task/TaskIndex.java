@@ -0,0 +1,123 @@
+package bong.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import bong.metrics.IndexUpdateEvent;
+
+/**
+ * Word-prefix index over task descriptions, kept up to date by listening to a TaskList.
+ * A query matches tasks that have, for every query word, a description word starting with it
+ * (case-insensitive). Lookups only touch the matching words rather than scanning every task.
+ * The index may be updated and queried from different threads.
+ */
+public class TaskIndex implements TaskListListener {
+    private final ConcurrentSkipListMap<String, Set<Task>> tasksByWord = new ConcurrentSkipListMap<>();
+
+    /**
+     * Constructs a TaskIndex containing the given tasks.
+     *
+     * @param tasks The tasks to index initially.
+     */
+    public TaskIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    @Override
+    public void onTaskChanged(TaskEvent event) {
+        IndexUpdateEvent updateEvent = new IndexUpdateEvent();
+        updateEvent.begin();
+        switch (event.getType()) {
+        case ADDED:
+            add(event.getTask());
+            break;
+        case REMOVED:
+            remove(event.getTask());
+            break;
+        default:
+            // Marking and rescheduling do not change the description
+            break;
+        }
+        if (updateEvent.shouldCommit()) {
+            updateEvent.change = event.getType().name();
+            updateEvent.commit();
+        }
+    }
+
+    private void add(Task task) {
+        for (String word : tokenise(task.getDescription())) {
+            tasksByWord.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(task);
+        }
+    }
+
+    private void remove(Task task) {
+        for (String word : tokenise(task.getDescription())) {
+            tasksByWord.computeIfPresent(word, (w, tasks) -> {
+                tasks.remove(task);
+                return tasks.isEmpty() ? null : tasks;
+            });
+        }
+    }
+
+    /**
+     * Finds the tasks matching every word of the query.
+     * Stops early, returning an empty set, if the calling thread is interrupted,
+     * so that a search superseded by a newer one can be cancelled.
+     *
+     * @param query The words to look for.
+     * @return The matching tasks, or null if the query has no words (everything matches).
+     */
+    public Set<Task> search(String query) {
+        List<String> words = tokenise(query);
+        if (words.isEmpty()) {
+            return null;
+        }
+        Set<Task> result = null;
+        for (String word : words) {
+            Set<Task> matches = new HashSet<>();
+            NavigableMap<String, Set<Task>> range = tasksByWord.subMap(word, true, word + Character.MAX_VALUE, true);
+            for (Map.Entry<String, Set<Task>> entry : range.entrySet()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return Collections.emptySet();
+                }
+                matches.addAll(entry.getValue());
+            }
+            if (result == null) {
+                result = matches;
+            } else {
+                result.retainAll(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits text into lower-case words made of letters and digits.
+     */
+    private static List<String> tokenise(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
@@ -1,18 +1,32 @@
 package bong.task;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
 
 import bong.exception.BongException;
 
 public class TaskList {
     private List<Task> tasks;
+    // Every task in the list, by id, with the position last recorded for it
+    private final TaskIdMap tasksById;
+    // The recorded positions are right for the tasks before this index; those after it are recorded
+    // again when one of them is looked up, so a removal or insertion does not renumber the rest at once
+    private int positionsKnownBefore;
+    // Ids are handed out in sequence and never reused while the list exists
+    private long nextId = 1;
+    // Copy-on-write so that publishing never takes a lock and listeners may unsubscribe while notified
+    private final List<TaskListListener> listeners = new CopyOnWriteArrayList<>();
 
     /*
      * Constructs an empty TaskList.
      */
     public TaskList() {
         this.tasks = new ArrayList<>();
+        this.tasksById = new TaskIdMap();
     }
 
     /*
@@ -22,12 +36,102 @@ public class TaskList {
      * @param tasks The initial list of tasks.
      */
     public TaskList(List<Task> tasks) {
+        this(tasks, 1);
+    }
+
+    /**
+     * Constructs a TaskList with an initial list of tasks, never giving out ids below the given one,
+     * so that the ids of tasks deleted or archived before the list was loaded are not reused.
+     *
+     * @param tasks The initial list of tasks.
+     * @param nextId The lowest id a new task may be given.
+     */
+    public TaskList(List<Task> tasks, long nextId) {
+        assert nextId > 0 : "ids start at 1";
         this.tasks = tasks;
+        this.tasksById = new TaskIdMap(tasks.size());
+        this.nextId = nextId;
+        for (Task task : tasks) {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            fileUnderId(tasks.get(i), i);
+        }
+        positionsKnownBefore = tasks.size();
+    }
+
+    /**
+     * Registers a listener to be notified of every subsequent change to this list.
+     *
+     * @param listener The listener to register.
+     */
+    public void addListener(TaskListListener listener) {
+        assert listener != null : "listener must not be null";
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops notifying the given listener of changes.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(TaskListListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void publish(TaskEvent.Type type, int index, Task task) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        TaskEvent event = new TaskEvent(type, index, task);
+        for (TaskListListener listener : listeners) {
+            listener.onTaskChanged(event);
+        }
+    }
+
+    /**
+     * Gives the task an id if it has none, or if another task in the list already has its id,
+     * and files it under that id with its position. A task new to the list, without an id, is stamped too.
+     */
+    private void fileUnderId(Task task, int position) {
+        long id = task.getId();
+        if (id == 0 && task.getStamp() == 0) {
+            task.setStamp(newStamp());
+        }
+        if (id == 0 || tasksById.get(id) != null) {
+            id = nextId;
+            task.setId(id);
+        }
+        nextId = Math.max(nextId, id + 1);
+        tasksById.put(task, position);
+    }
+
+    /**
+     * Stops the ids below the given one from being given out, as when another process has used them.
+     *
+     * @param nextId The lowest id a new task may be given.
+     */
+    public void reserveIdsBelow(long nextId) {
+        this.nextId = Math.max(this.nextId, nextId);
+    }
+
+    private static int newStamp() {
+        int stamp;
+        do {
+            stamp = ThreadLocalRandom.current().nextInt();
+        } while (stamp == 0);
+        return stamp;
     }
 
     public void addTask(Task task) {
         assert task != null : "task passed to addTask must not be null";
+        int position = tasks.size();
+        fileUnderId(task, position);
         this.tasks.add(task);
+        if (positionsKnownBefore == position) {
+            positionsKnownBefore++;
+        }
+        publish(TaskEvent.Type.ADDED, tasks.size() - 1, task);
     }
 
     public Task deleteTask(int taskIndex) throws BongException {
@@ -37,9 +141,138 @@ public class TaskList {
         }
         Task removed = tasks.remove(taskIndex - 1);
         assert removed != null : "removed task should not be null after remove";
+        tasksById.remove(removed.getId());
+        positionsKnownBefore = Math.min(positionsKnownBefore, taskIndex - 1);
+        publish(TaskEvent.Type.REMOVED, taskIndex - 1, removed);
         return removed;
     }
 
+    /**
+     * Removes every task matching the condition, keeping the rest in order.
+     * Listeners are told about each removal, from the last position to the first,
+     * so every reported index is valid at the time it is reported.
+     *
+     * @param condition Selects the tasks to remove.
+     * @return The removed tasks, in list order.
+     */
+    public List<Task> removeTasks(Predicate<Task> condition) {
+        List<Task> removed = new ArrayList<>();
+        List<Integer> removedIndexes = new ArrayList<>();
+        int kept = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (condition.test(task)) {
+                removed.add(task);
+                removedIndexes.add(i);
+                tasksById.remove(task.getId());
+            } else {
+                tasks.set(kept++, task);
+            }
+        }
+        tasks.subList(kept, tasks.size()).clear();
+        if (!removedIndexes.isEmpty()) {
+            positionsKnownBefore = Math.min(positionsKnownBefore, removedIndexes.get(0));
+        }
+        for (int i = removed.size() - 1; i >= 0; i--) {
+            publish(TaskEvent.Type.REMOVED, removedIndexes.get(i), removed.get(i));
+        }
+        return removed;
+    }
+
+    /**
+     * Brings the list in line with an updated copy of it, such as the task file after it was edited
+     * outside Bong. Only the tasks between the longest unchanged start and the longest unchanged end
+     * are touched: a task whose done flag alone changed is marked or unmarked, and any other changed
+     * task is replaced. Listeners are told about each change, so they never have to start over.
+     * Tasks keep their ids, and new tasks bring theirs, unless they have none.
+     *
+     * @param updated The tasks the list should hold, in order.
+     * @return The number of changes made.
+     */
+    public int applyChanges(List<Task> updated) {
+        int prefix = 0;
+        int limit = Math.min(tasks.size(), updated.size());
+        while (prefix < limit && isSameTask(tasks.get(prefix), updated.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && isSameTask(tasks.get(tasks.size() - 1 - suffix), updated.get(updated.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        int oldEnd = tasks.size() - suffix;
+        int newEnd = updated.size() - suffix;
+        int changes = 0;
+        int index = prefix;
+        for (; index < oldEnd && index < newEnd; index++) {
+            Task current = tasks.get(index);
+            Task replacement = updated.get(index);
+            if (hasSameContent(current, replacement) && hasSameId(current, replacement)) {
+                if (replacement.isDone()) {
+                    current.setMark();
+                    publish(TaskEvent.Type.MARKED, index, current);
+                } else {
+                    current.setUnmark();
+                    publish(TaskEvent.Type.UNMARKED, index, current);
+                }
+            } else {
+                tasksById.remove(current.getId());
+                if (replacement.getId() == 0) {
+                    replacement.setId(current.getId());
+                    replacement.setStamp(current.getStamp());
+                }
+                fileUnderId(replacement, index);
+                tasks.set(index, replacement);
+                publish(TaskEvent.Type.REMOVED, index, current);
+                publish(TaskEvent.Type.ADDED, index, replacement);
+            }
+            changes++;
+        }
+        for (int i = oldEnd - 1; i >= index; i--) {
+            Task removed = tasks.remove(i);
+            tasksById.remove(removed.getId());
+            positionsKnownBefore = Math.min(positionsKnownBefore, i);
+            publish(TaskEvent.Type.REMOVED, i, removed);
+            changes++;
+        }
+        for (int i = index; i < newEnd; i++) {
+            fileUnderId(updated.get(i), i);
+            tasks.add(i, updated.get(i));
+            positionsKnownBefore = Math.min(positionsKnownBefore, i);
+            publish(TaskEvent.Type.ADDED, i, updated.get(i));
+            changes++;
+        }
+        return changes;
+    }
+
+    private static boolean isSameTask(Task a, Task b) {
+        return a.isDone() == b.isDone() && hasSameContent(a, b) && hasSameId(a, b);
+    }
+
+    /**
+     * Returns whether the updated task keeps the id of the current one; an updated task without an id keeps any.
+     */
+    private static boolean hasSameId(Task current, Task updated) {
+        return updated.getId() == 0 || updated.getId() == current.getId();
+    }
+
+    /**
+     * Returns whether the two tasks are of the same kind with the same description and dates.
+     */
+    private static boolean hasSameContent(Task a, Task b) {
+        if (a.getClass() != b.getClass() || !a.getDescription().equals(b.getDescription())) {
+            return false;
+        }
+        if (a instanceof Deadline) {
+            return ((Deadline) a).getDeadline().equals(((Deadline) b).getDeadline());
+        } else if (a instanceof Event) {
+            return ((Event) a).getStart().equals(((Event) b).getStart())
+                    && ((Event) a).getEnd().equals(((Event) b).getEnd());
+        }
+        return true;
+    }
+
     public Task markTask(int taskIndex) throws BongException {
         assert tasks != null : "tasks list must be non-null";
         if (taskIndex <= 0 || taskIndex > tasks.size()) {
@@ -48,6 +281,7 @@ public class TaskList {
         tasks.get(taskIndex - 1).setMark();
         Task t = tasks.get(taskIndex - 1);
         assert t != null : "task at index must exist after mark";
+        publish(TaskEvent.Type.MARKED, taskIndex - 1, t);
         return t;
     }
 
@@ -59,9 +293,48 @@ public class TaskList {
         tasks.get(taskIndex - 1).setUnmark();
         Task t = tasks.get(taskIndex - 1);
         assert t != null : "task at index must exist after unmark";
+        publish(TaskEvent.Type.UNMARKED, taskIndex - 1, t);
         return t;
     }
 
+    /**
+     * Returns the task with the given id, however the list has changed since the id was given out.
+     *
+     * @param id The id of the task.
+     * @return The task.
+     * @throws BongException If no task in the list has that id.
+     */
+    public Task getTaskById(long id) throws BongException {
+        Task task = tasksById.get(id);
+        if (task == null) {
+            throw new BongException("There is no task #" + id + " in your list!");
+        }
+        return task;
+    }
+
+    /**
+     * Returns the current position of the task with the given id.
+     * The position is recorded with the task's id, so it is found in constant time. Only the first lookup
+     * after tasks have been removed or inserted records the positions of the tasks after them again.
+     *
+     * @param id The id of the task.
+     * @return The 1-based index of the task.
+     * @throws BongException If no task in the list has that id.
+     */
+    public int getTaskNumber(long id) throws BongException {
+        Task task = getTaskById(id);
+        int position = tasksById.positionOf(id);
+        if (position < 0 || position >= positionsKnownBefore) {
+            for (int i = positionsKnownBefore; i < tasks.size(); i++) {
+                tasksById.setPosition(tasks.get(i).getId(), i);
+            }
+            positionsKnownBefore = tasks.size();
+            position = tasksById.positionOf(id);
+        }
+        assert tasks.get(position) == task : "task #" + id + " should be at its recorded position";
+        return position + 1;
+    }
+
     public Task getTask(int taskIndex) throws BongException {
         assert tasks != null : "tasks list must be non-null";
         if (taskIndex <= 0 || taskIndex > tasks.size()) {
@@ -72,6 +345,45 @@ public class TaskList {
         return t;
     }
 
+    /**
+     * Moves the deadline of the task at the given position.
+     *
+     * @param taskIndex The 1-based index of the task.
+     * @param newDeadline The new deadline.
+     * @return The rescheduled task.
+     * @throws BongException If the index is out of bounds or the task is not a deadline.
+     */
+    public Deadline rescheduleDeadline(int taskIndex, LocalDateTime newDeadline) throws BongException {
+        Task t = getTask(taskIndex);
+        if (!(t instanceof Deadline)) {
+            throw new BongException("Task " + taskIndex + " is not a deadline.");
+        }
+        Deadline deadline = (Deadline) t;
+        deadline.setDeadline(newDeadline);
+        publish(TaskEvent.Type.RESCHEDULED, taskIndex - 1, deadline);
+        return deadline;
+    }
+
+    /**
+     * Moves the start and end times of the task at the given position.
+     *
+     * @param taskIndex The 1-based index of the task.
+     * @param newStart The new start time.
+     * @param newEnd The new end time.
+     * @return The rescheduled task.
+     * @throws BongException If the index is out of bounds or the task is not an event.
+     */
+    public Event rescheduleEvent(int taskIndex, LocalDateTime newStart, LocalDateTime newEnd) throws BongException {
+        Task t = getTask(taskIndex);
+        if (!(t instanceof Event)) {
+            throw new BongException("Task " + taskIndex + " is not an event.");
+        }
+        Event event = (Event) t;
+        event.setStart(newStart);
+        event.setEnd(newEnd);
+        publish(TaskEvent.Type.RESCHEDULED, taskIndex - 1, event);
+        return event;
+    }
 
     /**
      * Finds tasks in the list whose descriptions contain the specified keyword (case-insensitive).
@@ -80,6 +392,18 @@ public class TaskList {
      * @return A List<Task> containing all matching tasks.
      */
     public List<Task> findTasks(String keyword) {
+        return findTasks(tasks, keyword);
+    }
+
+    /**
+     * Finds tasks whose descriptions contain the specified keyword (case-insensitive) among tasks
+     * outside any list, such as archived ones, leaving their ids as they are.
+     *
+     * @param tasks The tasks to search.
+     * @param keyword The string to search for within task descriptions.
+     * @return A List<Task> containing all matching tasks, in order.
+     */
+    public static List<Task> findTasks(List<Task> tasks, String keyword) {
         List<Task> matchingTasks = new ArrayList<>();
         String lowercaseKeyword = keyword.toLowerCase();
         for (Task task : tasks) {
@@ -0,0 +1,16 @@
+package bong.task;
+
+/**
+ * Represents an observer that is notified whenever a TaskList changes.
+ * Listeners receive each change as it happens, so they can update themselves
+ * incrementally instead of recomputing from the whole list.
+ */
+public interface TaskListListener {
+
+    /**
+     * Called after a change has been applied to the TaskList.
+     *
+     * @param event The change that was applied.
+     */
+    void onTaskChanged(TaskEvent event);
+}
@@ -14,6 +14,16 @@ public class Todo extends Task {
         super(description);
     }
 
+    /**
+     * Constructs a loaded Todo whose description is decoded when first needed.
+     *
+     * @param encodedFields The fields as they were loaded.
+     * @param isDone Whether the task is done.
+     */
+    public Todo(EncodedTaskFields encodedFields, boolean isDone) {
+        super(encodedFields, isDone);
+    }
+
     @Override
     public String toString() {
         return "[T]" + super.toString();
@@ -1,6 +1,7 @@
 package bong.ui;
 
 import java.util.Scanner;
+import java.util.function.Consumer;
 
 /**
  * Deals with interaction with the user.
@@ -10,13 +11,16 @@ import java.util.Scanner;
 public class Ui {
     private Scanner scanner;
     private static final String LINE = "------------------------------";
+    // Receives warnings in place of the console once a front end without one has set it
+    private volatile Consumer<String> warningListener;
 
     /**
      * Constructs a Ui object.
-     * Initialises a new Scanner to read input from System.in.
+     * The Scanner on System.in is only opened when the first command is read,
+     * so front ends that never read from the console do not pay for it.
      */
     public Ui() {
-        this.scanner = new Scanner(System.in);
+        this.scanner = null;
     }
 
     /**
@@ -40,6 +44,9 @@ public class Ui {
      * @return The trimmed string entered by the user.
      */
     public String readCommand() {
+        if (scanner == null) {
+            scanner = new Scanner(System.in);
+        }
         return scanner.nextLine().trim();
     }
 
@@ -49,8 +56,7 @@ public class Ui {
      * @param message The specific error message about the loading failure.
      */
     public void showLoadingError(String message) {
-        System.out.println("Failed to load tasks: " + message);
-        showLine();
+        showWarning("Failed to load tasks: " + message);
     }
 
     /**
@@ -79,7 +85,26 @@ public class Ui {
      * @param line The corrupted line from the storage file.
      */
     public void showStorageCorruptionWarning(String line) {
-        System.out.println("Warning: Skipping corrupted line in storage: " + line);
+        showWarning("Warning: Skipping corrupted line in storage: " + line);
+    }
+
+    /**
+     * Sends later warnings to the given listener instead of the console, so that a front end
+     * without a console, such as the GUI, can show them to the user.
+     *
+     * @param listener Receives each warning, possibly from a background thread; null for the console.
+     */
+    public void setWarningListener(Consumer<String> listener) {
+        this.warningListener = listener;
+    }
+
+    private void showWarning(String warning) {
+        Consumer<String> listener = warningListener;
+        if (listener != null) {
+            listener.accept(warning);
+            return;
+        }
+        System.out.println(warning);
         showLine();
     }
 
@@ -87,6 +112,8 @@ public class Ui {
      * Closes the scanner used for reading user input.
      */
     public void closeScanner() {
-        scanner.close();
+        if (scanner != null) {
+            scanner.close();
+        }
     }
 }
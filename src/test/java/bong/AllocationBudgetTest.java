@@ -0,0 +1,96 @@
+package bong;
+
+import bong.BongCore.CommandType;
+import bong.exception.BongException;
+import bong.parser.Parser;
+import bong.storage.Storage;
+import bong.task.Deadline;
+import bong.task.Task;
+import bong.task.TaskList;
+import bong.task.Todo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Guards the command hot paths against allocation regressions.
+ * Budgets are in bytes per operation and leave some room for JVM differences,
+ * but fail as soon as a split, regex or string copy creeps back in.
+ */
+public class AllocationBudgetTest {
+    // A small command object such as MarkCommand, with room for an uncompressed header
+    private static final double COMMAND_OBJECT_BUDGET = 32;
+    private static final double NO_ALLOCATION_BUDGET = 1;
+
+    @BeforeEach
+    void requireAllocationCounters() {
+        assumeTrue(AllocationMeter.isSupported(), "thread allocation counters are not available");
+    }
+
+    @Test
+    void parse_numberedCommands_allocateOnlyTheCommand() {
+        assertWithinBudget("mark", COMMAND_OBJECT_BUDGET, parsing("mark 12"));
+        assertWithinBudget("unmark", COMMAND_OBJECT_BUDGET, parsing("  UNMARK 3 "));
+        assertWithinBudget("delete", COMMAND_OBJECT_BUDGET, parsing("delete 7"));
+    }
+
+    @Test
+    void parseCommandType_allocatesNothing() {
+        assertWithinBudget("parseCommandType", NO_ALLOCATION_BUDGET, () -> Parser.parseCommandType("deadline x /by y"));
+        assertEquals(CommandType.DEADLINE, Parser.parseCommandType("deadline x /by y"));
+    }
+
+    @Test
+    void markAndUnmark_allocateNothing() throws BongException {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("read book"));
+        assertWithinBudget("markTask", NO_ALLOCATION_BUDGET, unchecked(() -> tasks.markTask(1)));
+        assertWithinBudget("unmarkTask", NO_ALLOCATION_BUDGET, unchecked(() -> tasks.unmarkTask(1)));
+    }
+
+    @Test
+    void serialiseTask_allocatesLittleMoreThanTheLine() throws BongException {
+        SerialisingStorage storage = new SerialisingStorage();
+        Task todo = new Todo("read book");
+        Task deadline = new Deadline("return book", "2025-10-16 1800");
+        assertWithinBudget("serialise todo", 160, () -> storage.serialise(todo));
+        assertWithinBudget("serialise deadline", 256, () -> storage.serialise(deadline));
+    }
+
+    private static void assertWithinBudget(String operation, double budget, Supplier<?> work) {
+        double bytes = AllocationMeter.bytesPerOperation(work);
+        assertTrue(bytes <= budget, operation + " allocated " + bytes + " bytes per call, budget is " + budget);
+    }
+
+    private static Supplier<?> parsing(String input) {
+        return unchecked(() -> Parser.parse(input));
+    }
+
+    private static Supplier<?> unchecked(Operation operation) {
+        return () -> {
+            try {
+                return operation.run();
+            } catch (BongException e) {
+                throw new AssertionError(e);
+            }
+        };
+    }
+
+    private interface Operation {
+        Object run() throws BongException;
+    }
+
+    private static class SerialisingStorage extends Storage {
+        SerialisingStorage() {
+            super("build/tmp/allocation-test.txt");
+        }
+
+        String serialise(Task task) {
+            return serialiseTask(task);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package bong;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Measures how many bytes an operation allocates on the heap, using the JVM's
+ * per-thread allocation counter. The operation is run enough times first for the
+ * JIT to compile it, so the figure reflects steady-state behaviour.
+ */
+public final class AllocationMeter {
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int MEASURED_ITERATIONS = 20_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Results are stored here so the JIT cannot discard the measured work
+    private static volatile Object sink;
+
+    private AllocationMeter() {}
+
+    /**
+     * Returns whether this JVM can count allocated bytes per thread.
+     *
+     * @return True if measurements are available.
+     */
+    public static boolean isSupported() {
+        return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Returns the average number of bytes allocated by one call of the operation.
+     *
+     * @param operation The operation to measure; its result is kept alive.
+     * @return Average bytes allocated per call.
+     */
+    public static double bytesPerOperation(Supplier<?> operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink = operation.get();
+        }
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink = operation.get();
+        }
+        long after = THREADS.getCurrentThreadAllocatedBytes();
+        return (double) (after - before) / MEASURED_ITERATIONS;
+    }
+}
@@ -0,0 +1,67 @@
+package bong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for how BongCore picks up changes made to the task file outside it.
+ */
+public class BongCoreTest {
+
+    @Test
+    void handEditWithoutChecksum_isLoadedAsAnEdit(@TempDir Path tmp) throws Exception {
+        Path file = tmp.resolve("bong.txt");
+        BongCore core = new BongCore(file.toString());
+        core.getResponse("todo read book");
+        core.getResponse("todo return book");
+
+        // A line edited by hand leaves out the checksum, which Bong adds again on the next save
+        Files.writeString(file, Files.readString(file)
+                .replaceAll("read book( \\| id:\\S+) \\| crc:[0-9a-f]{8}", "read two books$1"));
+
+        String list = core.getResponse("list");
+        assertTrue(list.contains("read two books"), list);
+        assertTrue(list.contains("return book"), list);
+        assertEquals(2, core.getTaskList().size());
+    }
+
+    @Test
+    void handEditKeepingOldChecksum_isReportedAndNotApplied(@TempDir Path tmp) throws Exception {
+        Path file = tmp.resolve("bong.txt");
+        BongCore core = new BongCore(file.toString());
+        core.getResponse("todo read book");
+        core.getResponse("todo return book");
+
+        // Left with the checksum of the old description, the line cannot be told from a corrupted one
+        Files.writeString(file, Files.readString(file).replace("read book", "read two books"));
+
+        String list = core.getResponse("list");
+        assertTrue(list.contains("read book"), list);
+        assertFalse(list.contains("read two books"), list);
+        assertEquals(2, core.getTaskList().size());
+    }
+
+    @Test
+    void reloadWithDamagedLine_isNotApplied(@TempDir Path tmp) throws Exception {
+        Path file = tmp.resolve("bong.txt");
+        BongCore core = new BongCore(file.toString());
+        core.getResponse("todo read book");
+        core.getResponse("todo return book");
+
+        // The first line is damaged and the second is edited; neither change is taken in
+        String[] lines = Files.readString(file).split("\n");
+        lines[0] = lines[0].replace("T | 0 |", "X | 0 |");
+        lines[1] = lines[1].replace("return book", "return two books");
+        Files.writeString(file, String.join("\n", lines) + "\n");
+
+        String list = core.getResponse("list");
+        assertTrue(list.contains("read book"), list);
+        assertTrue(list.contains("return book"), list);
+        assertEquals(2, core.getTaskList().size());
+    }
+}
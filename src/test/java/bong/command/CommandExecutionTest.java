@@ -1,5 +1,7 @@
 package bong.command;
 
+import bong.exception.BongException;
+import bong.storage.JournalStorage;
 import bong.storage.Storage;
 import bong.task.Deadline;
 import bong.task.Event;
@@ -10,6 +12,7 @@ import bong.ui.Ui;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -120,4 +123,179 @@ public class CommandExecutionTest {
 
         ui.closeScanner();
     }
-}
\ No newline at end of file
+
+    @Test
+    void archive_movesCompletedTasksOutAndKeepsThemSearchable(@TempDir Path tmp) throws Exception {
+        Storage storage = new Storage(tmp.resolve("bong.txt").toString());
+        Ui ui = new Ui();
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("read book"));
+        tasks.addTask(new Deadline("return book", "2020-01-01 1200"));
+        tasks.addTask(new Deadline("buy book", "2999-01-01 1200"));
+        tasks.markTask(2);
+        tasks.markTask(3);
+        storage.saveTasks(tasks.getTasks());
+
+        // Only the deadline that is long past is old enough
+        String res = new ArchiveCommand(30).execute(tasks, ui, storage);
+        assertTrue(res.contains("archived 1"));
+        assertEquals(2, tasks.size());
+        assertEquals(2, storage.loadTasks(ui).size());
+
+        new ArchiveCommand().execute(tasks, ui, storage);
+        assertEquals(1, tasks.size());
+        assertEquals("read book", tasks.getTask(1).getDescription());
+        assertTrue(new ArchiveCommand().execute(tasks, ui, storage).contains("no completed tasks"));
+
+        List<Task> archived = storage.loadArchivedTasks(ui);
+        assertEquals(2, archived.size());
+        assertEquals("return book", archived.get(0).getDescription());
+        assertTrue(new ListCommand(true).execute(tasks, ui, storage).contains("buy book"));
+        assertFalse(new FindCommand("book", false).execute(tasks, ui, storage).contains("return book"));
+        assertTrue(new FindCommand("book", true).execute(tasks, ui, storage).contains("return book"));
+
+        ui.closeScanner();
+    }
+
+    @Test
+    void archive_inJournalMode_recordsRemovalsInHistory(@TempDir Path tmp) throws Exception {
+        JournalStorage storage = new JournalStorage(tmp.resolve("bong.txt").toString());
+        Ui ui = new Ui();
+        TaskList tasks = new TaskList(storage.loadTasks(ui));
+        new TodoCommand("read book").execute(tasks, ui, storage);
+        new TodoCommand("return book").execute(tasks, ui, storage);
+        new TodoCommand("buy book").execute(tasks, ui, storage);
+        new MarkCommand(1).execute(tasks, ui, storage);
+        new MarkCommand(3).execute(tasks, ui, storage);
+
+        new ArchiveCommand().execute(tasks, ui, storage);
+        List<Task> history = storage.loadTasksAt(ui, storage.getEventCount());
+        assertEquals(1, history.size());
+        assertEquals("return book", history.get(0).getDescription());
+        assertEquals(1, new JournalStorage(tmp.resolve("bong.txt").toString()).loadTasks(ui).size());
+
+        ui.closeScanner();
+    }
+
+    @Test
+    void history_inJournalMode_showsTheListAfterEarlierChanges(@TempDir Path tmp) throws Exception {
+        JournalStorage storage = new JournalStorage(tmp.resolve("bong.txt").toString());
+        Ui ui = new Ui();
+        TaskList tasks = new TaskList(storage.loadTasks(ui));
+        new TodoCommand("read book").execute(tasks, ui, storage);
+        new TodoCommand("return book").execute(tasks, ui, storage);
+        new DeleteCommand(1).execute(tasks, ui, storage);
+
+        String afterTwo = new HistoryCommand(2).execute(tasks, ui, storage);
+        assertTrue(afterTwo.contains("1. [T][ ] read book"), afterTwo);
+        assertTrue(afterTwo.contains("2. [T][ ] return book"), afterTwo);
+        assertTrue(new HistoryCommand().execute(tasks, ui, storage).contains("holds 3 changes"));
+        assertThrows(BongException.class, () -> new HistoryCommand(4).execute(tasks, ui, storage));
+        assertThrows(BongException.class, () -> new HistoryCommand(1).execute(tasks, ui,
+                new Storage(tmp.resolve("plain.txt").toString())));
+
+        ui.closeScanner();
+    }
+
+    @Test
+    void commandsById_findTheTaskAfterNumbersShift(@TempDir Path tmp) throws Exception {
+        Storage storage = new Storage(tmp.resolve("bong.txt").toString());
+        Ui ui = new Ui();
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("read book"));
+        tasks.addTask(new Deadline("return book", "2030-01-01 1200"));
+        long returnId = tasks.getTask(2).getId();
+        String list = new ListCommand().execute(tasks, ui, storage);
+        assertTrue(list.contains("2. [D][ ] return book (by: Jan 01 2030, 12:00) #" + returnId), list);
+
+        new DeleteCommand(1).execute(tasks, ui, storage);
+        assertTrue(MarkCommand.forId(returnId).execute(tasks, ui, storage).contains("[D][X] return book"));
+        SnoozeCommand.createForId(returnId, "2030-02-01 1200", null).execute(tasks, ui, storage);
+        assertEquals("[D][X] return book (by: Feb 01 2030, 12:00)", tasks.getTask(1).toString());
+        assertEquals(returnId, storage.loadTasks(ui).get(0).getId());
+        assertThrows(BongException.class, () -> DeleteCommand.forId(returnId + 1).execute(tasks, ui, storage));
+
+        ui.closeScanner();
+    }
+
+    @Test
+    void sync_addsAndMarksTasksFromOtherFileAndReportsConflicts(@TempDir Path tmp) throws Exception {
+        Storage storage = new Storage(tmp.resolve("bong.txt").toString());
+        Ui ui = new Ui();
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("read book"));
+        tasks.addTask(new Deadline("return book", "2030-01-01 1200"));
+        tasks.addTask(new Todo("only here"));
+
+        // The other copy has the same ids for the tasks the two files share
+        List<Task> other = List.of(new Todo("water plants"), new Todo("read book"),
+                new Deadline("return book", "2030-02-01 1200"), new Todo("only here, renamed there"));
+        other.get(0).setId(7);
+        other.get(1).setId(tasks.getTask(1).getId());
+        other.get(1).setMark();
+        other.get(2).setId(tasks.getTask(2).getId());
+        other.get(3).setId(tasks.getTask(3).getId());
+        Path otherFile = tmp.resolve("other.txt");
+        new Storage(otherFile.toString()).saveTasks(other);
+
+        String res = new SyncCommand(otherFile.toString()).execute(tasks, ui, storage);
+        assertTrue(res.contains("added 1"), res);
+        assertTrue(res.contains("marked 1"), res);
+        assertTrue(res.contains("there: [D][ ] return book"), res);
+        assertTrue(res.contains("there: [T][ ] only here, renamed there"), res);
+        assertEquals(4, tasks.size());
+        assertTrue(tasks.getTask(1).isDone());
+        assertEquals("only here", tasks.getTask(3).getDescription());
+        assertEquals("water plants", tasks.getTask(4).getDescription());
+        assertEquals(7, tasks.getTask(4).getId());
+        assertEquals(4, storage.loadTasks(ui).size());
+
+        // Only the conflict is left
+        assertFalse(new SyncCommand(otherFile.toString()).execute(tasks, ui, storage).contains("added 1"));
+        assertThrows(BongException.class,
+                () -> new SyncCommand(tmp.resolve("missing.txt").toString()).execute(tasks, ui, storage));
+
+        ui.closeScanner();
+    }
+
+    @Test
+    void sync_tasksAddedInBothCopiesWithTheSameId_areBothKept(@TempDir Path tmp) throws Exception {
+        Ui ui = new Ui();
+        Path file = tmp.resolve("bong.txt");
+        TaskList base = new TaskList();
+        base.addTask(new Todo("read book"));
+        new Storage(file.toString()).saveTasks(base.getTasks());
+        Path otherFile = tmp.resolve("other.txt");
+        Files.copy(file, otherFile);
+
+        // Each copy adds a task after the common base, and gives it the next id
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList(storage.loadTasks(ui), storage.getNextId());
+        tasks.addTask(new Todo("water plants"));
+        storage.saveTasks(tasks.getTasks());
+        Storage otherStorage = new Storage(otherFile.toString());
+        TaskList otherTasks = new TaskList(otherStorage.loadTasks(ui), otherStorage.getNextId());
+        otherTasks.addTask(new Todo("buy milk"));
+        otherStorage.saveTasks(otherTasks.getTasks());
+        assertEquals(tasks.getTask(2).getId(), otherTasks.getTask(2).getId());
+
+        String res = new SyncCommand(otherFile.toString()).execute(tasks, ui, storage);
+        assertTrue(res.contains("added 1"), res);
+        assertFalse(res.contains("different there"), res);
+        assertEquals(3, tasks.size());
+        assertEquals("water plants", tasks.getTask(2).getDescription());
+        assertEquals("buy milk", tasks.getTask(3).getDescription());
+        assertNotEquals(tasks.getTask(2).getId(), tasks.getTask(3).getId());
+
+        // The task taken in under a new id is still matched with its copy there
+        otherTasks.markTask(2);
+        otherStorage.saveTasks(otherTasks.getTasks());
+        res = new SyncCommand(otherFile.toString()).execute(tasks, ui, storage);
+        assertTrue(res.contains("added 0 tasks and marked 1"), res);
+        assertEquals(3, tasks.size());
+        assertTrue(tasks.getTask(3).isDone());
+        assertEquals(3, storage.loadTasks(ui).size());
+
+        ui.closeScanner();
+    }
+}
@@ -0,0 +1,44 @@
+package bong.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    void percentiles_areWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        long median = histogram.getValueAtPercentile(50);
+        assertTrue(median >= 500_000 && median <= 500_000 * 1.125, "median was " + median);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99 was " + p99);
+    }
+
+    @Test
+    void bucketOf_coversWholeRangeInOrder() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value += 7) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket >= previous);
+            assertTrue(LatencyHistogram.highestValueOf(bucket) >= value);
+            previous = bucket;
+        }
+        assertTrue(LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)) == Long.MAX_VALUE);
+    }
+
+    @Test
+    void reset_clearsRecordings() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
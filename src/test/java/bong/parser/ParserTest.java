@@ -1,11 +1,15 @@
 package bong.parser;
 
+import bong.command.ArchiveCommand;
 import bong.command.Command;
 import bong.command.DeadlineCommand;
 import bong.command.EventCommand;
 import bong.command.HelpCommand;
+import bong.command.HistoryCommand;
 import bong.command.ListCommand;
 import bong.command.MarkCommand;
+import bong.command.SnoozeCommand;
+import bong.command.SyncCommand;
 import bong.command.TodoCommand;
 import bong.exception.BongException;
 import org.junit.jupiter.api.Test;
@@ -60,12 +64,60 @@ public class ParserTest {
         assertEquals(1, m.getTaskNumber());
     }
 
+    @Test
+    void parse_markCommandMixedCaseWithSpaces_returnsMarkCommand() throws BongException {
+        Command c = Parser.parse("  MaRk   12  ");
+        assertTrue(c instanceof MarkCommand);
+        assertEquals(12, ((MarkCommand) c).getTaskNumber());
+    }
+
+    @Test
+    void parse_markCommandWithoutNumber_throwsBongException() {
+        Exception exception = assertThrows(BongException.class, () -> Parser.parse("mark   "));
+        assertTrue(exception.getMessage().contains("cannot be empty for mark"));
+    }
+
     @Test
     void parse_markCommandNonNumeric_throwsBongException() {
         Exception exception = assertThrows(BongException.class, () -> Parser.parse("mark abc"));
         assertTrue(exception.getMessage().contains("The task number provided is invalid"));
     }
 
+    @Test
+    void parse_archiveCommand_readsOptionalAge() throws BongException {
+        assertNull(((ArchiveCommand) Parser.parse("archive")).getMinimumAgeDays());
+        assertEquals(Integer.valueOf(30), ((ArchiveCommand) Parser.parse("archive 30")).getMinimumAgeDays());
+        assertThrows(BongException.class, () -> Parser.parse("archive -1"));
+        assertTrue(((ListCommand) Parser.parse("list /archived")).isListingArchived());
+        assertFalse(((ListCommand) Parser.parse("list")).isListingArchived());
+        assertThrows(BongException.class, () -> Parser.parse("find /all"));
+    }
+
+    @Test
+    void parse_taskId_givesCommandForThatId() throws BongException {
+        MarkCommand mark = (MarkCommand) Parser.parse("mark #12");
+        assertEquals(12, mark.getTaskId());
+        assertEquals(0, mark.getTaskNumber());
+        assertEquals(12, ((SnoozeCommand) Parser.parse("snooze #12 /to 2030-01-01 1200")).getTaskId());
+        assertThrows(BongException.class, () -> Parser.parse("delete #"));
+        assertThrows(BongException.class, () -> Parser.parse("unmark #0"));
+        assertEquals(0, ((MarkCommand) Parser.parse("mark 3")).getTaskId());
+    }
+
+    @Test
+    void parse_syncCommand_readsFilePath() throws BongException {
+        SyncCommand command = (SyncCommand) Parser.parse("sync backup/bong copy.txt");
+        assertEquals("backup/bong copy.txt", command.getOtherFilePath());
+        assertThrows(BongException.class, () -> Parser.parse("sync"));
+    }
+
+    @Test
+    void parse_historyCommand_readsNumberOfChanges() throws BongException {
+        assertEquals(3L, ((HistoryCommand) Parser.parse("history 3")).getChanges());
+        assertEquals(-1L, ((HistoryCommand) Parser.parse("history")).getChanges());
+        assertThrows(BongException.class, () -> Parser.parse("history -2"));
+    }
+
     @Test
     void parse_unknownCommand_throwsBongException() {
         Exception exception = assertThrows(BongException.class, () -> Parser.parse("abcde command"));
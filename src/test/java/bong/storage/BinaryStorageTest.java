@@ -0,0 +1,135 @@
+package bong.storage;
+
+import bong.task.Deadline;
+import bong.task.Event;
+import bong.task.Task;
+import bong.task.Todo;
+import bong.ui.Ui;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryStorageTest {
+    @Test
+    void saveTasks_thenLoad_roundTripsEveryField() throws Exception {
+        Path file = Files.createTempDirectory("bong-binary").resolve("bong.bin");
+        List<Task> tasks = createTasks();
+        new BinaryStorage(file.toString()).saveTasks(tasks);
+
+        List<Task> loaded = new BinaryStorage(file.toString()).loadTasks(new Ui());
+        assertEquals(describe(tasks), describe(loaded));
+        assertEquals('B', Files.readAllBytes(file)[0]);
+    }
+
+    @Test
+    void saveTasks_thenLoad_keepsTaskIdsAndStamps() throws Exception {
+        Path file = Files.createTempDirectory("bong-binary").resolve("bong.bin");
+        List<Task> tasks = createTasks();
+        tasks.get(0).setId(1L << 40);
+        tasks.get(0).setStamp(0x8badf00d);
+        new BinaryStorage(file.toString()).saveTasks(tasks);
+
+        List<Task> loaded = new BinaryStorage(file.toString()).loadTasks(new Ui());
+        assertEquals(1L << 40, loaded.get(0).getId());
+        assertEquals(0x8badf00d, loaded.get(0).getStamp());
+        assertEquals(0, loaded.get(1).getId());
+    }
+
+    @Test
+    void saveTasks_thenLoad_keepsDatesPastTheYear6053() throws Exception {
+        Path file = Files.createTempDirectory("bong-binary").resolve("bong.bin");
+        List<Task> tasks = List.of(new Deadline("renew lease", "7000-01-01 0900"),
+                new Event("eclipse", "1969-07-20 2017", "9999-12-31 2359"));
+        new BinaryStorage(file.toString()).saveTasks(tasks);
+
+        List<Task> loaded = new BinaryStorage(file.toString()).loadTasks(new Ui());
+        assertEquals(describe(tasks), describe(loaded));
+    }
+
+    @Test
+    void loadTasks_version2File_readsFourByteDates() throws Exception {
+        Path file = Files.createTempDirectory("bong-binary").resolve("bong.bin");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeBytes("BONG");
+        data.writeByte(2);
+        data.writeInt(1);
+        data.writeByte('D');
+        data.writeByte(7);
+        data.writeByte(4);
+        data.writeBytes("book");
+        data.writeInt((int) (LocalDateTime.of(2025, 10, 16, 18, 0).toEpochSecond(ZoneOffset.UTC) / 60));
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        data.writeInt((int) crc.getValue());
+        Files.write(file, bytes.toByteArray());
+
+        List<Task> loaded = new BinaryStorage(file.toString()).loadTasks(new Ui());
+        assertEquals(List.of("[D][ ] book (by: Oct 16 2025, 18:00) done=false"), describe(loaded));
+        assertEquals(7, loaded.get(0).getId());
+    }
+
+    @Test
+    void textFile_convertsToBinaryAndBack() throws Exception {
+        Path file = Files.createTempDirectory("bong-binary").resolve("bong.txt");
+        List<Task> tasks = createTasks();
+        new Storage(file.toString()).saveTasks(tasks);
+        long textSize = Files.size(file);
+
+        BinaryStorage binary = new BinaryStorage(file.toString());
+        binary.saveTasks(binary.loadTasks(new Ui()));
+        assertTrue(Files.size(file) < textSize / 2, "binary file should be much smaller than the text file");
+
+        Storage text = new Storage(file.toString());
+        List<Task> fromBinary = text.loadTasks(new Ui());
+        assertEquals(describe(tasks), describe(fromBinary));
+        text.saveTasks(fromBinary);
+        assertTrue(Files.readString(file).contains("\nT | 1 | read book"));
+    }
+
+    @Test
+    void loadTasks_corruptedBinaryFile_warnsAndKeepsDecodableTasks() throws Exception {
+        Path file = Files.createTempDirectory("bong-binary").resolve("bong.bin");
+        new BinaryStorage(file.toString()).saveTasks(createTasks());
+        byte[] content = Files.readAllBytes(file);
+        // Cut the file inside the last record
+        Files.write(file, Arrays.copyOf(content, content.length - 7));
+
+        List<String> warnings = new ArrayList<>();
+        List<Task> loaded = new BinaryStorage(file.toString()).loadTasks(new Ui() {
+            @Override
+            public void showStorageCorruptionWarning(String line) {
+                warnings.add(line);
+            }
+        });
+        assertFalse(warnings.isEmpty());
+        assertEquals(describe(createTasks()).subList(0, loaded.size()), describe(loaded));
+    }
+
+    private static List<Task> createTasks() throws Exception {
+        Task todo = new Todo("read book");
+        todo.setMark();
+        return List.of(todo,
+                new Deadline("return book \u2713", "2025-10-16 1800"),
+                new Event("project meeting", "2025-09-30 1200", "2025-09-30 1500"));
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        List<String> descriptions = new ArrayList<>();
+        for (Task task : tasks) {
+            descriptions.add(task.toString() + " done=" + task.isDone());
+        }
+        return descriptions;
+    }
+}
@@ -0,0 +1,89 @@
+package bong.storage;
+
+import bong.task.Deadline;
+import bong.task.Task;
+import bong.task.Todo;
+import bong.ui.Ui;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedStorageTest {
+    @Test
+    void saveTasks_manyBlocks_roundTripsInOrder() throws Exception {
+        Path file = Files.createTempDirectory("bong-compressed").resolve("bong.txt");
+        List<Task> tasks = createTasks(20_000);
+        new CompressedStorage(file.toString()).saveTasks(tasks);
+
+        List<Task> loaded = new CompressedStorage(file.toString()).loadTasks(new Ui());
+        assertEquals(describe(tasks), describe(loaded));
+    }
+
+    @Test
+    void saveTasks_writesOrdinaryGzipOfTheTextFile() throws Exception {
+        Path directory = Files.createTempDirectory("bong-compressed");
+        Path compressed = directory.resolve("compressed.txt");
+        Path text = directory.resolve("text.txt");
+        List<Task> tasks = createTasks(20_000);
+        new CompressedStorage(compressed.toString()).saveTasks(tasks);
+        new Storage(text.toString()).saveTasks(tasks);
+
+        byte[] inflated;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(Files.readAllBytes(compressed)))) {
+            inflated = in.readAllBytes();
+        }
+        assertEquals(Files.readAllLines(text), new String(inflated, StandardCharsets.UTF_8).lines().toList());
+        assertTrue(Files.size(compressed) < Files.size(text) / 4);
+    }
+
+    @Test
+    void loadTasks_corruptedBlock_keepsOtherBlocks() throws Exception {
+        Path file = Files.createTempDirectory("bong-compressed").resolve("bong.txt");
+        List<Task> tasks = createTasks(20_000);
+        new CompressedStorage(file.toString()).saveTasks(tasks);
+        byte[] content = Files.readAllBytes(file);
+        // Damage the compressed data of the first block, just after its header
+        content[30] ^= 0x55;
+        Files.write(file, content);
+
+        List<String> warnings = new ArrayList<>();
+        List<Task> loaded = new Storage(file.toString()).loadTasks(new Ui() {
+            @Override
+            public void showStorageCorruptionWarning(String line) {
+                warnings.add(line);
+            }
+        });
+        assertEquals(1, warnings.size());
+        assertFalse(loaded.isEmpty());
+        List<String> expected = describe(tasks);
+        assertEquals(expected.subList(expected.size() - loaded.size(), expected.size()), describe(loaded));
+    }
+
+    private static List<Task> createTasks(int count) throws Exception {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Task task = i % 2 == 0 ? new Todo("read book " + i) : new Deadline("return book " + i, "2025-10-16 1800");
+            if (i % 3 == 0) {
+                task.setMark();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        List<String> descriptions = new ArrayList<>();
+        for (Task task : tasks) {
+            descriptions.add(task.toString());
+        }
+        return descriptions;
+    }
+}
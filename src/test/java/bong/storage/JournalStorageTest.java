@@ -0,0 +1,132 @@
+package bong.storage;
+
+import bong.task.Task;
+import bong.task.TaskEvent;
+import bong.task.Todo;
+import bong.ui.Ui;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalStorageTest {
+
+    @Test
+    void loadTasks_replaysJournalTailAfterSnapshot(@TempDir Path tmp) throws Exception {
+        String file = tmp.resolve("bong.txt").toString();
+        JournalStorage storage = new JournalStorage(file, 3);
+        List<Task> tasks = storage.loadTasks(new Ui());
+        for (int i = 0; i < 5; i++) {
+            add(storage, tasks, "task " + i);
+        }
+        tasks.get(4).setMark();
+        storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.MARKED, 4, tasks.get(4)));
+
+        JournalStorage reopened = new JournalStorage(file, 3);
+        List<Task> loaded = reopened.loadTasks(new Ui());
+        assertEquals(describe(tasks), describe(loaded));
+        assertEquals(6, reopened.getEventCount());
+    }
+
+    @Test
+    void saveTasks_takesSnapshotEveryIntervalEvents(@TempDir Path tmp) throws Exception {
+        String file = tmp.resolve("bong.txt").toString();
+        JournalStorage storage = new JournalStorage(file, 3);
+        List<Task> tasks = storage.loadTasks(new Ui());
+        add(storage, tasks, "task 0");
+        add(storage, tasks, "task 1");
+        // The snapshot is the plain task file, which Storage itself can read
+        assertEquals(0, new Storage(file).loadTasks(new Ui()).size());
+
+        add(storage, tasks, "task 2");
+        assertEquals(describe(tasks), describe(new Storage(file).loadTasks(new Ui())));
+        assertTrue(Files.readString(Path.of(file)).startsWith("# journal 3 "));
+
+        add(storage, tasks, "task 3");
+        assertEquals(3, new Storage(file).loadTasks(new Ui()).size());
+    }
+
+    @Test
+    void loadTasksAt_rebuildsTheListAfterEarlierEvents(@TempDir Path tmp) throws Exception {
+        String file = tmp.resolve("bong.txt").toString();
+        JournalStorage storage = new JournalStorage(file, 2);
+        List<Task> tasks = storage.loadTasks(new Ui());
+        add(storage, tasks, "read book");
+        add(storage, tasks, "return book");
+        List<String> afterTwo = describe(tasks);
+        Task removed = tasks.remove(0);
+        storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.REMOVED, 0, removed));
+        add(storage, tasks, "water plants");
+
+        assertEquals(List.of(), describe(storage.loadTasksAt(new Ui(), 0)));
+        assertEquals(afterTwo, describe(storage.loadTasksAt(new Ui(), 2)));
+        assertEquals(describe(tasks), describe(storage.loadTasksAt(new Ui(), 4)));
+    }
+
+    @Test
+    void loadTasks_lastJournalLineCutShort_isDroppedAndLaterEventsStillLoad(@TempDir Path tmp) throws Exception {
+        String file = tmp.resolve("bong.txt").toString();
+        JournalStorage storage = new JournalStorage(file, 50);
+        List<Task> tasks = storage.loadTasks(new Ui());
+        add(storage, tasks, "read book");
+        Path journal = Path.of(file + ".journal");
+        Files.writeString(journal, "v1 | ADDED | 1 | T | 0 | retu", StandardOpenOption.APPEND);
+
+        CountingUi ui = new CountingUi();
+        JournalStorage restarted = new JournalStorage(file, 50);
+        List<Task> loaded = restarted.loadTasks(ui);
+        assertEquals(describe(tasks), describe(loaded));
+        assertEquals(1, ui.warnings);
+
+        add(restarted, loaded, "water plants");
+        CountingUi again = new CountingUi();
+        List<Task> reloaded = new JournalStorage(file, 50).loadTasks(again);
+        assertEquals(describe(loaded), describe(reloaded));
+        assertEquals(0, again.warnings);
+    }
+
+    @Test
+    void loadTasks_damagedEvent_stopsReplayThere(@TempDir Path tmp) throws Exception {
+        String file = tmp.resolve("bong.txt").toString();
+        JournalStorage storage = new JournalStorage(file, 50);
+        List<Task> tasks = storage.loadTasks(new Ui());
+        add(storage, tasks, "read book");
+        Path journal = Path.of(file + ".journal");
+        Files.writeString(journal, "v1 | REMOVED | 7\n", StandardOpenOption.APPEND);
+        Files.writeString(journal, "v1 | ADDED | 1 | T | 0 | return book\n", StandardOpenOption.APPEND);
+
+        CountingUi ui = new CountingUi();
+        List<Task> loaded = new JournalStorage(file, 50).loadTasks(ui);
+        assertEquals(describe(tasks), describe(loaded));
+        assertEquals(1, ui.warnings);
+    }
+
+    private static void add(JournalStorage storage, List<Task> tasks, String description) throws Exception {
+        Task task = new Todo(description);
+        tasks.add(task);
+        storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.ADDED, tasks.size() - 1, task));
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        List<String> descriptions = new ArrayList<>();
+        for (Task task : tasks) {
+            descriptions.add(task.toString());
+        }
+        return descriptions;
+    }
+
+    private static class CountingUi extends Ui {
+        private int warnings;
+
+        @Override
+        public void showStorageCorruptionWarning(String line) {
+            warnings++;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package bong.storage;
+
+import bong.task.Deadline;
+import bong.task.Event;
+import bong.task.Task;
+import bong.task.TaskEvent;
+import bong.task.Todo;
+import bong.ui.Ui;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedStorageTest {
+    private static final FileTime LONG_AGO = FileTime.fromMillis(0);
+
+    @Test
+    void saveTasks_thenLoad_keepsListOrderAcrossSegments() throws Exception {
+        Path file = Files.createTempDirectory("bong-partitioned").resolve("bong.txt");
+        List<Task> tasks = createTasks();
+        new PartitionedStorage(file.toString()).saveTasks(tasks);
+
+        assertEquals(List.of("2025-09.g1.txt", "2025-10.g1.txt", "todo.g1.txt"), segmentFiles(file));
+        assertEquals(describe(tasks), describe(new PartitionedStorage(file.toString()).loadTasks(new Ui())));
+        // Every storage mode can read a partitioned file
+        assertEquals(describe(tasks), describe(new Storage(file.toString()).loadTasks(new Ui())));
+    }
+
+    @Test
+    void snooze_acrossMonths_rewritesOnlyTheTwoSegments() throws Exception {
+        Path file = Files.createTempDirectory("bong-partitioned").resolve("bong.txt");
+        List<Task> tasks = createTasks();
+        PartitionedStorage storage = new PartitionedStorage(file.toString());
+        storage.saveTasks(tasks);
+        storage = new PartitionedStorage(file.toString());
+        tasks = storage.loadTasks(new Ui());
+        Map<String, byte[]> before = readSegments(file);
+        ageSegments(file);
+
+        // Move the October deadline to September
+        Deadline snoozed = new Deadline("return book", LocalDateTime.of(2025, 9, 20, 18, 0));
+        tasks.set(1, snoozed);
+        storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.RESCHEDULED, 1, snoozed));
+
+        assertEquals(List.of("2025-09.g1.txt", "2025-10.g1.txt"), touchedSegments(file));
+        assertArrayEquals(before.get("todo.g1.txt"), readSegments(file).get("todo.g1.txt"));
+        assertEquals(describe(tasks), describe(new PartitionedStorage(file.toString()).loadTasks(new Ui())));
+    }
+
+    @Test
+    void addMarkAndDelete_rewriteOnlyTheirSegment() throws Exception {
+        Path file = Files.createTempDirectory("bong-partitioned").resolve("bong.txt");
+        List<Task> tasks = createTasks();
+        PartitionedStorage storage = new PartitionedStorage(file.toString());
+        storage.saveTasks(tasks);
+
+        ageSegments(file);
+        Task added = new Deadline("pay rent", LocalDateTime.of(2025, 11, 1, 9, 0));
+        tasks.add(added);
+        storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.ADDED, tasks.size() - 1, added));
+        assertEquals(List.of("2025-11.g1.txt"), touchedSegments(file));
+
+        ageSegments(file);
+        tasks.get(0).setMark();
+        storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.MARKED, 0, tasks.get(0)));
+        assertEquals(List.of("todo.g1.txt"), touchedSegments(file));
+
+        ageSegments(file);
+        Task removed = tasks.remove(2);
+        storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.REMOVED, 2, removed));
+        assertEquals(List.of("2025-09.g1.txt"), touchedSegments(file));
+
+        assertEquals(describe(tasks), describe(new PartitionedStorage(file.toString()).loadTasks(new Ui())));
+    }
+
+    @Test
+    void saveTasks_crashBetweenSegments_keepsThePreviousTasks() throws Exception {
+        Path file = Files.createTempDirectory("bong-partitioned").resolve("bong.txt");
+        List<Task> tasks = createTasks();
+        PartitionedStorage storage = new PartitionedStorage(file.toString());
+        storage.saveTasks(tasks);
+        // Removing the first task leaves the keys of the rest one above the numbers a full save gives them
+        Task removed = tasks.remove(0);
+        storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.REMOVED, 0, removed));
+        List<String> saved = describe(tasks);
+
+        for (int segmentsWritten = 0; segmentsWritten < 3; segmentsWritten++) {
+            PartitionedStorage crashing = new CrashingPartitionedStorage(file.toString(), segmentsWritten);
+            List<Task> loaded = crashing.loadTasks(new Ui());
+            assertThrows(IOException.class, () -> crashing.saveTasks(loaded));
+
+            assertEquals(saved, describe(new PartitionedStorage(file.toString()).loadTasks(new Ui())));
+        }
+    }
+
+    /**
+     * Fails every write after the given number of segments, as if the process had been killed there.
+     */
+    private static class CrashingPartitionedStorage extends PartitionedStorage {
+        private int segmentsLeft;
+
+        CrashingPartitionedStorage(String filePath, int segmentsLeft) {
+            super(filePath);
+            this.segmentsLeft = segmentsLeft;
+        }
+
+        @Override
+        protected void writeAtomically(Path target, FileContents contents) throws IOException {
+            if (segmentsLeft-- == 0) {
+                throw new IOException("simulated crash");
+            }
+            super.writeAtomically(target, contents);
+        }
+    }
+
+    private static List<Task> createTasks() throws Exception {
+        return new ArrayList<>(List.of(new Todo("read book"),
+                new Deadline("return book", "2025-10-16 1800"),
+                new Event("project meeting", "2025-09-30 1200", "2025-09-30 1500"),
+                new Todo("water plants")));
+    }
+
+    private static List<String> segmentFiles(Path file) throws Exception {
+        return new ArrayList<>(readSegments(file).keySet()).stream().sorted().toList();
+    }
+
+    private static Map<String, byte[]> readSegments(Path file) throws Exception {
+        Map<String, byte[]> segments = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(PartitionedTaskFormat.segmentDirectory(file))) {
+            for (Path segment : files) {
+                segments.put(segment.getFileName().toString(), Files.readAllBytes(segment));
+            }
+        }
+        return segments;
+    }
+
+    private static void ageSegments(Path file) throws Exception {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(PartitionedTaskFormat.segmentDirectory(file))) {
+            for (Path segment : files) {
+                Files.setLastModifiedTime(segment, LONG_AGO);
+            }
+        }
+    }
+
+    private static List<String> touchedSegments(Path file) throws Exception {
+        List<String> touched = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(PartitionedTaskFormat.segmentDirectory(file))) {
+            for (Path segment : files) {
+                if (!Files.getLastModifiedTime(segment).equals(LONG_AGO)) {
+                    touched.add(segment.getFileName().toString());
+                }
+            }
+        }
+        touched.sort(null);
+        return touched;
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        List<String> descriptions = new ArrayList<>();
+        for (Task task : tasks) {
+            descriptions.add(task.toString() + " done=" + task.isDone());
+        }
+        return descriptions;
+    }
+}
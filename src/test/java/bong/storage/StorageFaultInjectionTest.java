@@ -0,0 +1,207 @@
+package bong.storage;
+
+import bong.exception.BongException;
+import bong.task.Deadline;
+import bong.task.Event;
+import bong.task.Task;
+import bong.task.Todo;
+import bong.ui.Ui;
+import org.junit.jupiter.api.Test;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Simulates crashes and disk corruption at random points and checks that no bad task is ever loaded.
+ */
+public class StorageFaultInjectionTest {
+    private static final int TRIALS = 50;
+
+    @Test
+    void saveTasks_writeKilledAtRandomOffset_keepsPreviousFile() throws Exception {
+        Path file = Files.createTempDirectory("bong-fault").resolve("bong.txt");
+        List<Task> saved = createTasks(20, "old");
+        List<Task> attempted = createTasks(25, "new");
+        new Storage(file.toString()).saveTasks(saved);
+        long fullSize = Files.size(file);
+
+        Random random = new Random(7);
+        for (int i = 0; i < TRIALS; i++) {
+            long crashOffset = random.nextInt((int) fullSize);
+            Storage crashing = new CrashingStorage(file.toString(), crashOffset);
+            assertThrows(IOException.class, () -> crashing.saveTasks(attempted));
+
+            assertEquals(describe(saved), describe(new Storage(file.toString()).loadTasks(new CountingUi())));
+            assertFalse(Files.exists(Path.of(file + ".tmp")), "temporary file should be cleaned up");
+        }
+    }
+
+    @Test
+    void loadTasks_fileTornAtRandomOffset_loadsOnlyIntactRecords() throws Exception {
+        Path file = Files.createTempDirectory("bong-fault").resolve("bong.txt");
+        List<Task> tasks = createTasks(20, "task");
+        new Storage(file.toString()).saveTasks(tasks);
+        byte[] content = Files.readAllBytes(file);
+
+        Random random = new Random(11);
+        for (int i = 0; i < TRIALS; i++) {
+            int length = random.nextInt(content.length);
+            Files.write(file, Arrays.copyOf(content, length));
+            CountingUi ui = new CountingUi();
+            List<Task> loaded = new Storage(file.toString()).loadTasks(ui);
+
+            assertEquals(describe(tasks).subList(0, loaded.size()), describe(loaded));
+            int records = countRecords(Arrays.copyOf(content, length));
+            assertEquals(records, loaded.size() + ui.warnings, "every record is either loaded intact or reported");
+        }
+    }
+
+    @Test
+    void loadTasks_byteCorruptedAtRandomOffset_reportsThatRecordOnly() throws Exception {
+        Path file = Files.createTempDirectory("bong-fault").resolve("bong.txt");
+        List<Task> tasks = createTasks(20, "task");
+        new Storage(file.toString()).saveTasks(tasks);
+        byte[] content = Files.readAllBytes(file);
+        // The next id header holds no task, so only the records are corrupted
+        int headerLength = new String(content, StandardCharsets.UTF_8).indexOf('\n') + 1;
+
+        Random random = new Random(13);
+        for (int i = 0; i < TRIALS; i++) {
+            byte[] corrupted = content.clone();
+            int offset;
+            do {
+                offset = random.nextInt(corrupted.length);
+            } while (offset < headerLength || corrupted[offset] == '\n' || corrupted[offset] == '\r');
+            corrupted[offset] ^= 0x01;
+            Files.write(file, corrupted);
+            CountingUi ui = new CountingUi();
+            List<Task> loaded = new Storage(file.toString()).loadTasks(ui);
+
+            if (isDoneFlag(corrupted, offset)) {
+                // Looks like an interrupted in-place mark, so the checksummed value is restored
+                assertEquals(0, ui.warnings);
+                assertEquals(describe(tasks), describe(loaded));
+                continue;
+            }
+            assertEquals(1, ui.warnings);
+            assertEquals(tasks.size() - 1, loaded.size());
+            assertTrue(describe(tasks).containsAll(describe(loaded)));
+        }
+    }
+
+    @Test
+    void loadTasks_legacyLinesWithoutChecksum_stillLoad() throws Exception {
+        Path file = Files.createTempFile("bong-legacy", ".txt");
+        Files.write(file, List.of("T | 1 | borrow book", "D | 0 | return book | 2025-10-16 1200"));
+        CountingUi ui = new CountingUi();
+        List<Task> loaded = new Storage(file.toString()).loadTasks(ui);
+        assertEquals(2, loaded.size());
+        assertEquals(0, ui.warnings);
+        assertTrue(loaded.get(0).isDone());
+    }
+
+    private static List<Task> createTasks(int count, String prefix) throws BongException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Task task;
+            switch (i % 3) {
+            case 0:
+                task = new Todo(prefix + " todo " + i);
+                break;
+            case 1:
+                task = new Deadline(prefix + " deadline " + i, "2025-10-16 1800");
+                break;
+            default:
+                task = new Event(prefix + " event " + i, "2025-09-30 1200", "2025-09-30 1500");
+                break;
+            }
+            if (i % 2 == 0) {
+                task.setMark();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        List<String> descriptions = new ArrayList<>();
+        for (Task task : tasks) {
+            descriptions.add(task.toString());
+        }
+        return descriptions;
+    }
+
+    private static boolean isDoneFlag(byte[] content, int offset) {
+        int lineStart = offset;
+        while (lineStart > 0 && content[lineStart - 1] != '\n') {
+            lineStart--;
+        }
+        return offset - lineStart == 4;
+    }
+
+    private static int countRecords(byte[] content) {
+        int records = 0;
+        for (String line : new String(content, StandardCharsets.UTF_8).split("\r?\n")) {
+            if (!line.isBlank() && line.charAt(0) != '#') {
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private static class CountingUi extends Ui {
+        private int warnings;
+
+        @Override
+        public void showStorageCorruptionWarning(String line) {
+            warnings++;
+        }
+    }
+
+    /**
+     * Storage whose writes fail once a given number of bytes have been written, as if the process died there.
+     */
+    private static class CrashingStorage extends Storage {
+        private final long crashOffset;
+
+        CrashingStorage(String filePath, long crashOffset) {
+            super(filePath);
+            this.crashOffset = crashOffset;
+        }
+
+        @Override
+        OutputStream newTempFileStream(FileChannel channel) {
+            return new FilterOutputStream(super.newTempFileStream(channel)) {
+                private long written;
+
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    long allowed = Math.min(length, crashOffset - written);
+                    if (allowed > 0) {
+                        out.write(bytes, offset, (int) allowed);
+                        written += allowed;
+                    }
+                    if (allowed < length) {
+                        throw new IOException("simulated crash after " + written + " bytes");
+                    }
+                }
+            };
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package bong.storage;
 
 import bong.ui.Ui;
+import bong.task.Deadline;
+import bong.task.Event;
 import bong.task.Task;
+import bong.task.TaskEvent;
+import bong.task.Todo;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class StorageTest {
     @Test
@@ -30,4 +40,136 @@ public class StorageTest {
         assertEquals("return book", tasks.get(1).getDescription());
         assertEquals("project meeting", tasks.get(2).getDescription());
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadTasks_savedFile_decodesFieldsOnFirstUse() throws Exception {
+        Path tmp = Files.createTempDirectory("bong-test").resolve("bong.txt");
+        List<Task> saved = List.of(new Todo("borrow book"), new Deadline("return book \u2713", "2025-10-16 1200"),
+                new Event("project meeting", "2025-09-30 1200", "2025-09-30 1500"));
+        saved.get(2).setMark();
+        new Storage(tmp.toString()).saveTasks(saved);
+
+        List<Task> loaded = new Storage(tmp.toString()).loadTasks(new Ui());
+        // A change made before a field is first read must survive the fields being decoded
+        Deadline deadline = (Deadline) loaded.get(1);
+        deadline.setDeadline(LocalDateTime.of(2025, 10, 18, 13, 0));
+        assertEquals("[D][ ] return book \u2713 (by: Oct 18 2025, 13:00)", deadline.toString());
+        assertTrue(loaded.get(2) instanceof Event);
+        assertTrue(loaded.get(2).isDone());
+        assertEquals(saved.get(2).toString(), loaded.get(2).toString());
+        assertEquals("borrow book", loaded.get(0).getDescription());
+    }
+
+    @Test
+    void loadTasks_keepsTaskIds() throws Exception {
+        Path tmp = Files.createTempDirectory("bong-test").resolve("bong.txt");
+        List<Task> saved = List.of(new Todo("borrow book"), new Event("project meeting", "2025-09-30 1200",
+                "2025-09-30 1500"), new Todo("no id yet"));
+        saved.get(0).setId(7);
+        saved.get(0).setStamp(0x0badf00d);
+        saved.get(1).setId(123456789012L);
+        new Storage(tmp.toString()).saveTasks(saved);
+        // A line added by hand, without a checksum, keeps its id too
+        Files.writeString(tmp, Files.readString(tmp) + "D | 0 | return book | 2025-10-16 1200 | id:9\n");
+
+        List<Task> loaded = new Storage(tmp.toString()).loadTasks(new Ui());
+        assertEquals(4, loaded.size());
+        assertEquals(7, loaded.get(0).getId());
+        assertEquals(0x0badf00d, loaded.get(0).getStamp());
+        assertEquals(0, loaded.get(1).getStamp());
+        assertEquals(123456789012L, loaded.get(1).getId());
+        assertEquals("project meeting", loaded.get(1).getDescription());
+        assertEquals(0, loaded.get(2).getId());
+        assertEquals(9, loaded.get(3).getId());
+        assertEquals("return book", loaded.get(3).getDescription());
+    }
+
+    @Test
+    void saveTasks_markEvent_updatesRecordInPlace() throws Exception {
+        Path tmp = Files.createTempDirectory("bong-test").resolve("bong.txt");
+        Storage storage = new Storage(tmp.toString());
+        List<Task> tasks = new ArrayList<>(List.of(
+                new Todo("borrow book"), new Deadline("return book", "2025-10-16 1200")));
+        storage.saveTasks(tasks);
+        Object fileKey = Files.readAttributes(tmp, BasicFileAttributes.class).fileKey();
+        long size = Files.size(tmp);
+
+        tasks.get(1).setMark();
+        storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.MARKED, 1, tasks.get(1)));
+
+        // A full save renames a new file into place, so the same file means the record was patched
+        assertEquals(fileKey, Files.readAttributes(tmp, BasicFileAttributes.class).fileKey());
+        assertEquals(size, Files.size(tmp));
+        List<Task> loaded = new Storage(tmp.toString()).loadTasks(new Ui());
+        assertFalse(loaded.get(0).isDone());
+        assertTrue(loaded.get(1).isDone());
+    }
+
+    @Test
+    void saveTasks_markAfterFileChangedElsewhere_rewritesWholeFile() throws Exception {
+        Path tmp = Files.createTempDirectory("bong-test").resolve("bong.txt");
+        Storage storage = new Storage(tmp.toString());
+        List<Task> tasks = new ArrayList<>(List.of(new Todo("borrow book"), new Todo("read book")));
+        storage.saveTasks(tasks);
+        Files.writeString(tmp, "T | 0 | something else\n");
+
+        tasks.get(0).setMark();
+        storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.MARKED, 0, tasks.get(0)));
+
+        List<Task> loaded = new Storage(tmp.toString()).loadTasks(new Ui());
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("read book", loaded.get(1).getDescription());
+    }
+
+    @Test
+    void loadTasks_markInterruptedBeforeChecksumWritten_keepsPreviousFlag() throws Exception {
+        Path tmp = Files.createTempDirectory("bong-test").resolve("bong.txt");
+        new Storage(tmp.toString()).saveTasks(List.of(new Todo("borrow book")));
+        byte[] content = Files.readAllBytes(tmp);
+        content[4] = '1';
+        Files.write(tmp, content);
+
+        List<Task> loaded = new Storage(tmp.toString()).loadTasks(new Ui());
+        assertEquals(1, loaded.size());
+        assertFalse(loaded.get(0).isDone());
+    }
+
+    @Test
+    void loadTasks_afterNewestTaskRemoved_doesNotGiveOutItsIdAgain() throws Exception {
+        List<Function<String, Storage>> modes = List.of(Storage::new, BinaryStorage::new, CompressedStorage::new,
+                PartitionedStorage::new, JournalStorage::new);
+        for (Function<String, Storage> mode : modes) {
+            Path tmp = Files.createTempDirectory("bong-test").resolve("bong.txt");
+            Storage storage = mode.apply(tmp.toString());
+            storage.loadTasks(new Ui());
+            List<Task> tasks = new ArrayList<>(List.of(new Todo("borrow book"), new Todo("read book")));
+            tasks.get(0).setId(1);
+            tasks.get(1).setId(2);
+            storage.saveTasks(tasks);
+            Task added = new Todo("return book");
+            added.setId(3);
+            tasks.add(added);
+            storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.ADDED, 2, added));
+            tasks.remove(2);
+            storage.saveTasks(tasks, new TaskEvent(TaskEvent.Type.REMOVED, 2, added));
+
+            Storage reloaded = mode.apply(tmp.toString());
+            assertEquals(2, reloaded.loadTasks(new Ui()).size());
+            assertEquals(4, reloaded.getNextId(), storage.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void loadTasks_fileWithoutNextId_doesNotGiveOutArchivedIdsAgain() throws Exception {
+        Path tmp = Files.createTempDirectory("bong-test").resolve("bong.txt");
+        Task archived = new Todo("return book");
+        archived.setId(5);
+        new Storage(tmp.toString()).archiveTasks(List.of(archived));
+        Files.writeString(tmp, "T | 0 | borrow book | id:2\n");
+
+        Storage storage = new Storage(tmp.toString());
+        assertEquals(1, storage.loadTasks(new Ui()).size());
+        assertEquals(6, storage.getNextId());
+    }
+}
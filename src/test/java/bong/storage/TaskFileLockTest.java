@@ -0,0 +1,48 @@
+package bong.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskFileLockTest {
+    @Test
+    void advanceVersion_isSeenByOtherLocksOnTheSameFile() throws Exception {
+        String file = Files.createTempDirectory("bong-lock").resolve("bong.txt").toString();
+        try (TaskFileLock first = new TaskFileLock(file); TaskFileLock second = new TaskFileLock(file)) {
+            assertEquals(0, first.lock(true));
+            assertEquals(1, first.advanceVersion());
+            assertEquals(2, first.advanceVersion());
+            first.unlock();
+
+            assertEquals(2, second.lock(false));
+            second.unlock();
+        }
+    }
+
+    @Test
+    void exclusiveLock_keepsOthersWaitingUntilUnlocked() throws Exception {
+        String file = Files.createTempDirectory("bong-lock").resolve("bong.txt").toString();
+        try (TaskFileLock holder = new TaskFileLock(file); TaskFileLock waiter = new TaskFileLock(file)) {
+            holder.lock(true);
+            CompletableFuture<Long> waited = CompletableFuture.supplyAsync(() -> {
+                try {
+                    long version = waiter.lock(false);
+                    waiter.unlock();
+                    return version;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            assertThrows(TimeoutException.class, () -> waited.get(200, TimeUnit.MILLISECONDS));
+
+            holder.advanceVersion();
+            holder.unlock();
+            assertEquals(Long.valueOf(1), waited.get(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package bong.storage;
+
+import bong.task.Task;
+import bong.task.Todo;
+import bong.ui.Ui;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskFileWatcherTest {
+    @Test
+    void externalEdit_isReportedAndTellsApartFromOwnSaves() throws Exception {
+        Path file = Files.createTempDirectory("bong-watch").resolve("bong.txt");
+        Storage storage = new Storage(file.toString());
+        List<Task> tasks = new ArrayList<>(List.of(new Todo("read book")));
+        storage.saveTasks(tasks);
+        assertFalse(storage.isChangedExternally());
+
+        Semaphore changes = new Semaphore(0);
+        try (TaskFileWatcher watcher = TaskFileWatcher.start(file, changes::release)) {
+            tasks.add(new Todo("return book"));
+            storage.saveTasks(tasks);
+            assertTrue(changes.tryAcquire(10, TimeUnit.SECONDS), "own save should be seen");
+            assertFalse(storage.isChangedExternally());
+
+            Files.writeString(file, Files.readString(file) + "T | 0 | water plants\n");
+            assertTrue(changes.tryAcquire(10, TimeUnit.SECONDS), "outside edit should be seen");
+            assertTrue(storage.isChangedExternally());
+        }
+        assertEquals(3, storage.loadTasks(new Ui()).size());
+        assertFalse(storage.isChangedExternally());
+    }
+}
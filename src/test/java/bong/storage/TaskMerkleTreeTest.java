@@ -0,0 +1,98 @@
+package bong.storage;
+
+import bong.storage.TaskMerkleTree.Difference;
+import bong.task.Deadline;
+import bong.task.Task;
+import bong.task.TaskList;
+import bong.task.Todo;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskMerkleTreeTest {
+    @Test
+    void diff_findsOnlyTheTasksThatDiffer() throws Exception {
+        List<Task> ours = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            ours.add(withId(new Todo("task " + i), i + 1));
+        }
+        ours.add(withId(new Deadline("return book", "2030-01-01 1200"), 2001));
+        List<Task> theirs = new ArrayList<>(ours);
+        // The same tasks in another order are not a difference
+        Collections.reverse(theirs);
+        int depth = TaskMerkleTree.depthFor(ours.size());
+        assertTrue(TaskMerkleTree.build(ours, depth, true).diff(TaskMerkleTree.build(theirs, depth, true)).isEmpty());
+
+        Task marked = withId(new Todo("task 7"), 8);
+        marked.setMark();
+        theirs.set(theirs.indexOf(ours.get(7)), marked);
+        theirs.add(withId(new Todo("task 2000"), 3000));
+        theirs.remove(ours.get(2000));
+
+        List<Difference> differences =
+                TaskMerkleTree.build(ours, depth, true).diff(TaskMerkleTree.build(theirs, depth, true));
+        assertEquals(3, differences.size());
+        for (Difference difference : differences) {
+            if (difference.getOurs() == null) {
+                assertEquals("task 2000", difference.getTheirs().getDescription());
+            } else if (difference.getTheirs() == null) {
+                assertEquals("return book", difference.getOurs().getDescription());
+            } else {
+                assertEquals("task 7", difference.getOurs().getDescription());
+                assertTrue(difference.getTheirs().isDone());
+            }
+        }
+    }
+
+    @Test
+    void diff_matchesRenamedTaskByItsId() {
+        List<Task> ours = List.of(withId(new Todo("read book"), 1), withId(new Todo("water plants"), 2));
+        List<Task> theirs = List.of(withId(new Todo("read two books"), 1), withId(new Todo("water plants"), 2));
+        List<Difference> differences =
+                TaskMerkleTree.build(ours, 1, true).diff(TaskMerkleTree.build(theirs, 1, true));
+        assertEquals(1, differences.size());
+        assertEquals("read book", differences.get(0).getOurs().getDescription());
+        assertEquals("read two books", differences.get(0).getTheirs().getDescription());
+    }
+
+    @Test
+    void diff_tellsApartTasksWithTheSameDescription() {
+        List<Task> ours = List.of(new Todo("water plants"), new Todo("water plants"));
+        List<Task> theirs = List.of(new Todo("water plants"));
+        List<Difference> differences =
+                TaskMerkleTree.build(ours, 1, false).diff(TaskMerkleTree.build(theirs, 1, false));
+        assertEquals(1, differences.size());
+        assertNull(differences.get(0).getTheirs());
+    }
+
+    @Test
+    void treeFollowingList_matchesTreeBuiltAfterTheChanges() throws Exception {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 300; i++) {
+            tasks.addTask(new Todo("task " + i));
+        }
+        tasks.addTask(new Deadline("return book", "2030-01-01 1200"));
+        int depth = TaskMerkleTree.depthFor(tasks.size());
+        TaskMerkleTree following = TaskMerkleTree.build(tasks.getTasks(), depth, true);
+        TaskMerkleTree before = TaskMerkleTree.build(tasks.getTasks(), depth, true);
+        tasks.addListener(following);
+
+        tasks.markTask(3);
+        tasks.deleteTask(10);
+        tasks.addTask(new Todo("water plants"));
+        tasks.rescheduleDeadline(tasks.size() - 1, LocalDateTime.of(2030, 2, 1, 12, 0));
+
+        assertTrue(following.diff(TaskMerkleTree.build(tasks.getTasks(), depth, true)).isEmpty());
+        assertEquals(4, following.diff(before).size());
+    }
+
+    private static Task withId(Task task, long id) {
+        task.setId(id);
+        return task;
+    }
+}
@@ -0,0 +1,41 @@
+package bong.task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskIdMapTest {
+    @Test
+    void putAndRemove_agreeWithHashMap() {
+        TaskIdMap map = new TaskIdMap();
+        Map<Long, Task> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            // Few enough ids that they collide, are removed and come back often
+            long id = 1 + random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                map.remove(id);
+                expected.remove(id);
+            } else {
+                Task task = new Todo("Task " + i);
+                task.setId(id);
+                map.put(task);
+                expected.put(id, task);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long id = 1; id <= 500; id++) {
+            assertTrue(expected.get(id) == map.get(id), "task #" + id);
+        }
+        assertNull(map.get(0));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(expected.keySet().iterator().next()));
+    }
+}
@@ -0,0 +1,39 @@
+package bong.task;
+
+import bong.exception.BongException;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskIndexTest {
+    @Test
+    void search_matchesWordPrefixesCaseInsensitively() {
+        Task book = new Todo("Return Library book");
+        Task meeting = new Todo("project meeting");
+        TaskIndex index = new TaskIndex(List.of(book, meeting));
+
+        assertEquals(Set.of(book), index.search("lib"));
+        assertEquals(Set.of(book), index.search("BOOK ret"));
+        assertTrue(index.search("library meeting").isEmpty());
+        assertNull(index.search("  "));
+    }
+
+    @Test
+    void search_followsTaskListChanges() throws BongException {
+        TaskList taskList = new TaskList();
+        TaskIndex index = new TaskIndex(taskList.getTasks());
+        taskList.addListener(index);
+
+        Task task = new Todo("read book");
+        taskList.addTask(task);
+        assertEquals(Set.of(task), index.search("read"));
+
+        taskList.deleteTask(1);
+        assertTrue(index.search("read").isEmpty());
+    }
+}
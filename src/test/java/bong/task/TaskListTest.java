@@ -2,6 +2,10 @@ package bong.task;
 
 import bong.exception.BongException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -156,5 +160,166 @@ public class TaskListTest {
         taskList.deleteTask(1);
         assertEquals(1, taskList.size());
     }
-}
 
+    @Test
+    void listener_receivesEachChangeWithIndexAndTask() throws BongException {
+        List<TaskEvent> events = new ArrayList<>();
+        taskList.addListener(events::add);
+        Task task1 = new Todo("Task One");
+        Task task2 = new Todo("Task Two");
+        taskList.addTask(task1);
+        taskList.addTask(task2);
+        taskList.markTask(2);
+        taskList.deleteTask(1);
+
+        assertEquals(4, events.size());
+        assertEquals(TaskEvent.Type.ADDED, events.get(1).getType());
+        assertEquals(1, events.get(1).getIndex());
+        assertEquals(TaskEvent.Type.MARKED, events.get(2).getType());
+        assertEquals(task2, events.get(2).getTask());
+        assertEquals(TaskEvent.Type.REMOVED, events.get(3).getType());
+        assertEquals(0, events.get(3).getIndex());
+        assertEquals(task1, events.get(3).getTask());
+    }
+
+    @Test
+    void removeTasks_removesMatchesInOrderAndReportsEachRemoval() throws BongException {
+        for (int i = 1; i <= 5; i++) {
+            taskList.addTask(new Todo("Task " + i));
+        }
+        taskList.markTask(2);
+        taskList.markTask(4);
+        List<TaskEvent> events = new ArrayList<>();
+        taskList.addListener(events::add);
+
+        List<Task> removed = taskList.removeTasks(Task::isDone);
+
+        assertEquals(2, removed.size());
+        assertEquals("Task 2", removed.get(0).getDescription());
+        assertEquals(3, taskList.size());
+        assertEquals("Task 3", taskList.getTask(2).getDescription());
+        // Removals are reported from the back, so each index is still valid when it arrives
+        assertEquals(2, events.size());
+        assertEquals(3, events.get(0).getIndex());
+        assertEquals(1, events.get(1).getIndex());
+    }
+
+    @Test
+    void applyChanges_touchesOnlyTheChangedMiddle() throws BongException {
+        for (int i = 1; i <= 5; i++) {
+            taskList.addTask(new Todo("Task " + i));
+        }
+        Task unchanged = taskList.getTask(1);
+        List<Task> updated = new ArrayList<>();
+        updated.add(new Todo("Task 1"));
+        updated.add(new Todo("Task 2"));
+        updated.get(1).setMark();
+        updated.add(new Todo("Task 3 edited"));
+        updated.add(new Todo("Task 5"));
+        List<TaskEvent> events = new ArrayList<>();
+        taskList.addListener(events::add);
+
+        assertEquals(3, taskList.applyChanges(updated));
+
+        assertEquals(4, taskList.size());
+        assertTrue(taskList.getTask(2).isDone());
+        assertEquals("Task 3 edited", taskList.getTask(3).getDescription());
+        assertEquals("Task 5", taskList.getTask(4).getDescription());
+        // Tasks that did not change are kept, not swapped for their reloaded copies
+        assertTrue(unchanged == taskList.getTask(1));
+        assertEquals(TaskEvent.Type.MARKED, events.get(0).getType());
+        assertEquals(TaskEvent.Type.REMOVED, events.get(1).getType());
+        assertEquals(TaskEvent.Type.ADDED, events.get(2).getType());
+        assertEquals(2, events.get(2).getIndex());
+        assertEquals(TaskEvent.Type.REMOVED, events.get(3).getType());
+        assertEquals(3, events.get(3).getIndex());
+        assertEquals(0, taskList.applyChanges(updated));
+    }
+
+    @Test
+    void removeListener_stopsNotifications() {
+        List<TaskEvent> events = new ArrayList<>();
+        TaskListListener listener = events::add;
+        taskList.addListener(listener);
+        taskList.removeListener(listener);
+        taskList.addTask(new Todo("Task One"));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void taskIds_stayWithTheirTasksWhenPositionsShift() throws BongException {
+        Task first = new Todo("Task One");
+        Task second = new Todo("Task Two");
+        Task third = new Todo("Task Three");
+        taskList.addTask(first);
+        taskList.addTask(second);
+        taskList.addTask(third);
+        long thirdId = third.getId();
+
+        taskList.deleteTask(1);
+        assertEquals(2, taskList.getTaskNumber(thirdId));
+        assertTrue(third == taskList.getTaskById(thirdId));
+        assertThrows(BongException.class, () -> taskList.getTaskById(first.getId()));
+
+        // A deleted task's id is not given out again
+        Task fourth = new Todo("Task Four");
+        taskList.addTask(fourth);
+        assertTrue(fourth.getId() > thirdId);
+    }
+
+    @Test
+    void taskIds_loadedTasksKeepTheirIdsAndOthersGetNewOnes() throws BongException {
+        Task kept = new Todo("Kept");
+        kept.setId(40);
+        Task clash = new Todo("Clash");
+        clash.setId(40);
+        Task fresh = new Todo("Fresh");
+        TaskList loaded = new TaskList(new ArrayList<>(List.of(kept, clash, fresh)));
+
+        assertEquals(40, kept.getId());
+        assertEquals(41, clash.getId());
+        assertEquals(42, fresh.getId());
+        assertEquals(3, loaded.getTaskNumber(42));
+
+        // A reloaded copy of a task keeps its id, even when its content has changed
+        List<Task> updated = new ArrayList<>(List.of(new Todo("Kept edited"), new Todo("Clash"), new Todo("Fresh")));
+        updated.get(1).setId(41);
+        loaded.applyChanges(updated);
+        assertEquals("Kept edited", loaded.getTaskById(40).getDescription());
+        assertEquals(1, loaded.getTaskNumber(40));
+    }
+
+    @Test
+    void taskIds_newTasksStartAtTheGivenNextId() throws BongException {
+        Task loaded = new Todo("read book");
+        loaded.setId(2);
+        TaskList list = new TaskList(new ArrayList<>(List.of(loaded)), 5);
+        list.addTask(new Todo("return book"));
+        list.reserveIdsBelow(8);
+        list.addTask(new Todo("borrow book"));
+
+        assertEquals(2, loaded.getId());
+        assertEquals(5, list.getTask(2).getId());
+        assertEquals(8, list.getTask(3).getId());
+    }
+
+    @Test
+    void getTaskNumber_followsRandomAddsAndRemovals() throws BongException {
+        Random random = new Random(5);
+        for (int i = 0; i < 2000; i++) {
+            int choice = random.nextInt(4);
+            if (choice == 0 && taskList.size() > 0) {
+                taskList.deleteTask(1 + random.nextInt(taskList.size()));
+            } else if (choice == 1) {
+                String digit = String.valueOf(random.nextInt(10));
+                taskList.removeTasks(task -> task.getDescription().endsWith(digit));
+            } else {
+                taskList.addTask(new Todo("Task " + i));
+            }
+            if (taskList.size() > 0) {
+                Task task = taskList.getTask(1 + random.nextInt(taskList.size()));
+                assertEquals(taskList.getTasks().indexOf(task) + 1, taskList.getTaskNumber(task.getId()));
+            }
+        }
+    }
+}